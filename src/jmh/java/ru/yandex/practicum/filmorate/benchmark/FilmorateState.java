@@ -0,0 +1,178 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.index.EntityIdIndex;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserFriendDbStorage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Приложение без веб-слоя поверх H2 в памяти или в файле, заполненное данными заданного размера.
+@State(Scope.Benchmark)
+public class FilmorateState {
+
+	private static final Path FILE_DB_DIRECTORY = Path.of("target", "jmh-db");
+	private static final int BATCH_SIZE = 1000;
+
+	@Param({"1000", "10000"})
+	public int users;
+
+	@Param({"1000"})
+	public int films;
+
+	@Param({"10"})
+	public int likesPerFilm;
+
+	@Param({"20"})
+	public int friendsPerUser;
+
+	@Param({"mem", "file"})
+	public String storage;
+
+	ConfigurableApplicationContext context;
+	FilmDbStorage filmStorage;
+	UserFriendDbStorage userFriendStorage;
+	UserService userService;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		String url;
+		if ("file".equals(storage)) {
+			FileSystemUtils.deleteRecursively(FILE_DB_DIRECTORY);
+			url = "jdbc:h2:file:./" + FILE_DB_DIRECTORY.resolve("filmorate");
+		} else {
+			url = "jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1";
+		}
+
+		context = new SpringApplicationBuilder(FilmorateApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.datasource.url=" + url,
+						"spring.main.banner-mode=off",
+						"spring.jpa.show-sql=false",
+						"logging.level.root=WARN",
+						"logging.level.org.zalando.logbook=WARN")
+				.run();
+
+		seed(context.getBean(JdbcTemplate.class));
+		// Индексы строятся при старте, до заполнения базы.
+		context.getBean(EntityIdIndex.class).rebuild();
+		context.getBean(FriendGraph.class).rebuild();
+		context.getBean(FilmPopularityIndex.class).rebuild();
+		context.getBean(LikeMatrix.class).rebuild();
+
+		filmStorage = context.getBean(FilmDbStorage.class);
+		userFriendStorage = context.getBean(UserFriendDbStorage.class);
+		userService = context.getBean(UserService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		context.getBean(JdbcTemplate.class).execute("DROP ALL OBJECTS");
+		context.close();
+		FileSystemUtils.deleteRecursively(FILE_DB_DIRECTORY);
+	}
+
+	private void seed(JdbcTemplate jdbcTemplate) {
+		Random random = new Random(42);
+
+		Batch userBatch = new Batch(jdbcTemplate, "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)");
+		for (int i = 1; i <= users; i++) {
+			userBatch.add("user" + i + "@example.com", "user" + i, "User " + i,
+					Date.valueOf(LocalDate.of(1970, 1, 1).plusDays(i % 15000)));
+		}
+		userBatch.flush();
+
+		Batch filmBatch = new Batch(jdbcTemplate,
+				"INSERT INTO films (name, description, release_date, duration, mpa_rating_id) VALUES (?, ?, ?, ?, ?)");
+		Batch genreBatch = new Batch(jdbcTemplate, "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)");
+		for (int i = 1; i <= films; i++) {
+			filmBatch.add("Film " + i, "Description " + i, Date.valueOf(LocalDate.of(1990, 1, 1).plusDays(i % 12000)),
+					60 + i % 120, 1 + i % 5);
+		}
+		filmBatch.flush();
+		for (int i = 1; i <= films; i++) {
+			genreBatch.add(i, 1 + i % 6);
+			if (i % 3 == 0) {
+				genreBatch.add(i, 1 + (i + 3) % 6);
+			}
+		}
+		genreBatch.flush();
+
+		Batch likeBatch = new Batch(jdbcTemplate, "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)");
+		for (int filmId = 1; filmId <= films; filmId++) {
+			for (long userId : distinctRandomIds(random, Math.min(likesPerFilm, users), users, 0)) {
+				likeBatch.add(filmId, userId);
+			}
+		}
+		likeBatch.flush();
+
+		Batch friendBatch = new Batch(jdbcTemplate, "INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)");
+		for (int userId = 1; userId <= users; userId++) {
+			for (long friendId : distinctRandomIds(random, Math.min(friendsPerUser, users - 1), users, userId)) {
+				friendBatch.add(userId, friendId);
+			}
+		}
+		friendBatch.flush();
+	}
+
+	private static Set<Long> distinctRandomIds(Random random, int count, int maxId, long excludedId) {
+		Set<Long> ids = new LinkedHashSet<>();
+		while (ids.size() < count) {
+			long id = 1 + random.nextInt(maxId);
+			if (id != excludedId) {
+				ids.add(id);
+			}
+		}
+		return ids;
+	}
+
+	private static final class Batch {
+
+		private final JdbcTemplate jdbcTemplate;
+		private final String sql;
+		private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+
+		private Batch(JdbcTemplate jdbcTemplate, String sql) {
+			this.jdbcTemplate = jdbcTemplate;
+			this.sql = sql;
+		}
+
+		private void add(Object... row) {
+			rows.add(row);
+			if (rows.size() == BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (!rows.isEmpty()) {
+				jdbcTemplate.batchUpdate(sql, rows);
+				rows.clear();
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Поиск по каталогу из синтетических фильмов: слова из слогов, частоты слов по закону Ципфа.
+// Индекс заполняется напрямую, без базы. Виды запросов: exact - слово средней частоты и второе слово
+// из того же фильма, prefix - первые три буквы частого слова, typo - слово с переставленными буквами.
+// Слова запросов тоже распределены по Ципфу, поэтому хвост задержек дают запросы из самых частых слов.
+// mvn -Pjmh -DskipTests test-compile exec:exec -Djmh.args="SearchBenchmark"
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+	private static final String[] SYLLABLES = {"ка", "ро", "ми", "на", "ле", "ту", "са", "во", "ди", "ре", "по",
+			"ла", "не", "ки", "да", "мо", "ст", "вер", "гор", "дар", "ник", "зон", "тир", "бел"};
+	private static final int VOCABULARY = 50_000;
+	private static final int QUERIES = 1024;
+
+	@Param({"100000", "300000"})
+	public int films;
+
+	@Param({"exact", "prefix", "typo"})
+	public String query;
+
+	private FilmSearchIndex index;
+	private String[] queries;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		String[] words = new String[VOCABULARY];
+		for (int i = 0; i < words.length; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int s = 2 + random.nextInt(3); s > 0; s--) {
+				word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+			}
+			words[i] = word.toString();
+		}
+		double[] cumulative = zipf(words.length);
+
+		FilmPopularityIndex popularityIndex = new FilmPopularityIndex(null, null);
+		index = new FilmSearchIndex(null, popularityIndex);
+		String[][] descriptions = new String[films][];
+		for (int id = 1; id <= films; id++) {
+			String[] name = sample(words, cumulative, random, 1 + random.nextInt(3));
+			String[] description = sample(words, cumulative, random, 10 + random.nextInt(15));
+			descriptions[id - 1] = description;
+			Film film = new Film(id, String.join(" ", name), String.join(" ", description), LocalDate.of(2000, 1, 1),
+					100, null, new LinkedHashSet<>());
+			index.index(film);
+			popularityIndex.addFilm(film);
+			for (int like = random.nextInt(5); like > 0; like--) {
+				popularityIndex.incrementLikes(id);
+			}
+		}
+
+		queries = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			String[] description = descriptions[random.nextInt(films)];
+			String word = description[random.nextInt(description.length)];
+			queries[i] = switch (query) {
+				case "exact" -> word + " " + description[random.nextInt(description.length)];
+				case "prefix" -> words[random.nextInt(100)].substring(0, 3);
+				default -> word.length() < 4 ? word : word.charAt(1) + "" + word.charAt(0) + word.substring(2);
+			};
+		}
+		List<Long> sample = index.search(queries[0], 10);
+		System.out.printf("%n%s: \"%s\" -> %d фильмов%n", query, queries[0], sample.size());
+	}
+
+	@Benchmark
+	public List<Long> search() {
+		String text = queries[next++ & (QUERIES - 1)];
+		return index.search(text, 10);
+	}
+
+	private static double[] zipf(int size) {
+		double[] cumulative = new double[size];
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += 1.0 / (i + 1);
+			cumulative[i] = sum;
+		}
+		for (int i = 0; i < size; i++) {
+			cumulative[i] /= sum;
+		}
+		return cumulative;
+	}
+
+	private static String[] sample(String[] words, double[] cumulative, Random random, int count) {
+		String[] result = new String[count];
+		for (int i = 0; i < count; i++) {
+			int slot = Arrays.binarySearch(cumulative, random.nextDouble());
+			result[i] = words[Math.min(words.length - 1, slot < 0 ? -slot - 1 : slot)];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Стоимость сериализации большого списка фильмов и размер ответа в JSON, JSON со сжатием, CBOR и Smile.
+// Размер тела на каждый вариант печатается при подготовке состояния:
+// mvn -Pjmh -DskipTests test-compile exec:exec -Djmh.args="SerializationBenchmark"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+	@Param({"json", "json-gzip", "cbor", "smile"})
+	public String format;
+
+	@Param({"100", "1000", "10000"})
+	public int films;
+
+	private ObjectMapper mapper;
+	private boolean gzip;
+	private List<Film> payload;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		// Настройки те же, что у конвертеров приложения: даты строками, модуль JavaTime.
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		mapper = switch (format) {
+			case "cbor" -> builder.factory(new CBORFactory()).build();
+			case "smile" -> builder.factory(new SmileFactory()).build();
+			default -> builder.build();
+		};
+		gzip = format.equals("json-gzip");
+		payload = films(films);
+
+		ByteCounter counter = new ByteCounter();
+		write(counter);
+		System.out.printf("%n%s, фильмов: %d, байт: %d (%.1f на фильм)%n",
+				format, films, counter.bytes, (double) counter.bytes / films);
+	}
+
+	@Benchmark
+	public long serialize() throws IOException {
+		ByteCounter counter = new ByteCounter();
+		write(counter);
+		return counter.bytes;
+	}
+
+	private void write(OutputStream outputStream) throws IOException {
+		if (gzip) {
+			try (GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 8192)) {
+				mapper.writeValue(gzipStream, payload);
+			}
+		} else {
+			mapper.writeValue(outputStream, payload);
+		}
+	}
+
+	private static List<Film> films(int count) {
+		Random random = new Random(42);
+		List<Mpa> ratings = List.of(
+				new Mpa(1, "G", "Нет возрастных ограничений"),
+				new Mpa(2, "PG", "Детям рекомендуется смотреть фильм с родителями"),
+				new Mpa(3, "PG-13", "Детям до 13 лет просмотр не желателен"),
+				new Mpa(4, "R", "Лицам до 17 лет просматривать фильм можно только в присутствии взрослого"),
+				new Mpa(5, "NC-17", "Лицам до 18 лет просмотр запрещён"));
+		List<Genre> genres = List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"),
+				new Genre(3L, "Мультфильм"), new Genre(4L, "Триллер"), new Genre(5L, "Документальный"),
+				new Genre(6L, "Боевик"));
+		List<Film> result = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			Set<Genre> filmGenres = new LinkedHashSet<>();
+			for (int g = random.nextInt(3); g >= 0; g--) {
+				filmGenres.add(genres.get(random.nextInt(genres.size())));
+			}
+			result.add(new Film(i, "Фильм " + i, "Описание фильма номер " + i + " для проверки размера ответа",
+					LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25_000)), 60 + random.nextInt(120),
+					ratings.get(random.nextInt(ratings.size())), filmGenres));
+		}
+		return result;
+	}
+
+	// Тело не копируется в память: считается только число байт, как если бы оно уходило в сокет.
+	private static final class ByteCounter extends OutputStream {
+
+		private long bytes;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+	}
+}
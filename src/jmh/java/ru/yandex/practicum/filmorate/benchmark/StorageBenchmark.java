@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Горячие пути хранилища и сервисов: mvn -Pjmh -DskipTests test-compile exec:exec
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+	@Benchmark
+	public Collection<Film> findAllFilms(FilmorateState state) {
+		return state.filmStorage.findAll();
+	}
+
+	@Benchmark
+	public Collection<Film> getPopularFilms(FilmorateState state) {
+		return state.filmStorage.getPopularFilms(10);
+	}
+
+	@Benchmark
+	public Optional<Film> findFilmById(FilmorateState state) {
+		return state.filmStorage.findById(randomId(state.films));
+	}
+
+	@Benchmark
+	public Collection<User> getFriends(FilmorateState state) {
+		return state.userFriendStorage.getFriends(randomId(state.users));
+	}
+
+	@Benchmark
+	public Collection<User> getCommonFriends(FilmorateState state) {
+		return state.userService.getCommonFriends(randomId(state.users), randomId(state.users));
+	}
+
+	private static long randomId(int maxId) {
+		return 1 + ThreadLocalRandom.current().nextInt(maxId);
+	}
+}
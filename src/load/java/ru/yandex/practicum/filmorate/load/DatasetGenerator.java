@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.load;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+// Заполняет запущенный экземпляр синтетическими данными через эндпоинты загрузки NDJSON:
+// пользователи, фильмы с жанрами и MPA из справочников, лайки по закону Ципфа (немногие фильмы
+// собирают большую часть лайков) и граф дружбы со степенным распределением (предпочтительное присоединение).
+//
+// mvn -Pload -DskipTests test-compile exec:exec -Dload.main=ru.yandex.practicum.filmorate.load.DatasetGenerator \
+//     -Dload.args="--base-url=http://localhost:8080 --users=100000 --films=20000"
+public final class DatasetGenerator {
+
+	public static void main(String[] args) throws IOException {
+		Options options = new Options(args);
+		FilmorateClient client = new FilmorateClient(options.get("base-url", "http://localhost:8080"));
+		int users = options.getInt("users", 10_000);
+		int films = options.getInt("films", 5_000);
+		double likesPerUser = options.getDouble("likes-per-user", 20);
+		double zipfExponent = options.getDouble("zipf-exponent", 1.0);
+		int friendsPerUser = options.getInt("friends-per-user", 10);
+		double reciprocity = options.getDouble("friend-reciprocity", 0.5);
+		Random random = new Random(options.getLong("seed", 42));
+		Path directory = Files.createDirectories(Path.of(options.get("dir", "target/dataset")));
+		String prefix = "gen" + Long.toString(System.currentTimeMillis(), 36);
+
+		long[] mpaIds = client.ids(client.getJson("/mpa"));
+		long[] genreIds = client.ids(client.getJson("/genres"));
+
+		Path usersFile = directory.resolve("users.ndjson");
+		try (NdjsonWriter writer = new NdjsonWriter(client, usersFile)) {
+			for (int i = 0; i < users; i++) {
+				JsonGenerator json = writer.begin();
+				json.writeStringField("email", prefix + "_" + i + "@example.com");
+				json.writeStringField("login", prefix + "_" + i);
+				json.writeStringField("name", "User " + i);
+				json.writeStringField("birthday", LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000)).toString());
+				writer.end();
+			}
+		}
+		load(client, "/users/import", usersFile);
+
+		Path filmsFile = directory.resolve("films.ndjson");
+		try (NdjsonWriter writer = new NdjsonWriter(client, filmsFile)) {
+			for (int i = 0; i < films; i++) {
+				JsonGenerator json = writer.begin();
+				json.writeStringField("name", "Film " + prefix + " " + i);
+				json.writeStringField("description", "Synthetic film " + i);
+				json.writeStringField("releaseDate", LocalDate.of(1930, 1, 1).plusDays(random.nextInt(34_000)).toString());
+				json.writeNumberField("duration", 60 + random.nextInt(140));
+				json.writeObjectFieldStart("mpa");
+				json.writeNumberField("id", mpaIds[random.nextInt(mpaIds.length)]);
+				json.writeEndObject();
+				json.writeArrayFieldStart("genres");
+				int genreCount = 1 + random.nextInt(Math.min(3, genreIds.length));
+				for (long genreId : distinct(random, genreIds, genreCount)) {
+					json.writeStartObject();
+					json.writeNumberField("id", genreId);
+					json.writeEndObject();
+				}
+				json.writeEndArray();
+				writer.end();
+			}
+		}
+		load(client, "/films/import", filmsFile);
+
+		// Загрузка могла отклонить часть строк, поэтому id берутся из выгрузки, а не вычисляются.
+		long[] userIds = client.exportIds("/export/users");
+		long[] filmIds = client.exportIds("/export/films");
+		System.out.printf("В базе пользователей: %d, фильмов: %d%n", userIds.length, filmIds.length);
+
+		Path likesFile = directory.resolve("likes.ndjson");
+		ZipfDistribution filmPopularity = new ZipfDistribution(filmIds.length, zipfExponent);
+		try (NdjsonWriter writer = new NdjsonWriter(client, likesFile)) {
+			Set<Integer> liked = new HashSet<>();
+			for (long userId : userIds) {
+				// Число лайков пользователя распределено экспоненциально со средним likesPerUser.
+				int count = (int) Math.min(filmIds.length / 2, Math.round(-likesPerUser * Math.log(1 - random.nextDouble())));
+				liked.clear();
+				while (liked.size() < count) {
+					liked.add(filmPopularity.sample(random));
+				}
+				for (int rank : liked) {
+					JsonGenerator json = writer.begin();
+					json.writeNumberField("filmId", filmIds[rank]);
+					json.writeNumberField("userId", userId);
+					writer.end();
+				}
+			}
+		}
+		load(client, "/films/likes/import", likesFile);
+
+		Path friendsFile = directory.resolve("friends.ndjson");
+		try (NdjsonWriter writer = new NdjsonWriter(client, friendsFile)) {
+			// Каждая вершина попадает в endpoints столько раз, какова её степень, поэтому случайный выбор
+			// из endpoints выбирает друга с вероятностью, пропорциональной числу его связей.
+			int[] endpoints = new int[Math.max(1, 2 * friendsPerUser * userIds.length)];
+			int endpointCount = 0;
+			Set<Integer> chosen = new HashSet<>();
+			for (int user = 1; user < userIds.length; user++) {
+				chosen.clear();
+				int count = Math.min(friendsPerUser, user);
+				while (chosen.size() < count) {
+					int candidate = endpointCount == 0 || random.nextInt(4) == 0
+							? random.nextInt(user)
+							: endpoints[random.nextInt(endpointCount)];
+					chosen.add(candidate);
+				}
+				for (int friend : chosen) {
+					writeFriendship(writer, userIds[user], userIds[friend]);
+					if (random.nextDouble() < reciprocity) {
+						writeFriendship(writer, userIds[friend], userIds[user]);
+					}
+					if (endpointCount + 2 <= endpoints.length) {
+						endpoints[endpointCount++] = user;
+						endpoints[endpointCount++] = friend;
+					}
+				}
+			}
+		}
+		load(client, "/users/friends/import", friendsFile);
+	}
+
+	private static void writeFriendship(NdjsonWriter writer, long userId, long friendId) throws IOException {
+		JsonGenerator json = writer.begin();
+		json.writeNumberField("userId", userId);
+		json.writeNumberField("friendId", friendId);
+		writer.end();
+	}
+
+	private static long[] distinct(Random random, long[] values, int count) {
+		long[] shuffled = values.clone();
+		for (int i = 0; i < count; i++) {
+			int j = i + random.nextInt(shuffled.length - i);
+			long value = shuffled[i];
+			shuffled[i] = shuffled[j];
+			shuffled[j] = value;
+		}
+		return Arrays.copyOf(shuffled, count);
+	}
+
+	private static void load(FilmorateClient client, String path, Path file) {
+		long start = System.nanoTime();
+		JsonNode report = client.importFile(path, file);
+		System.out.printf("%s: загружено %d, с ошибками %d за %d мс%n", path, report.get("imported").asLong(),
+				report.get("failed").asLong(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private static final class NdjsonWriter implements AutoCloseable {
+
+		private final OutputStream out;
+		private final JsonGenerator generator;
+
+		private NdjsonWriter(FilmorateClient client, Path file) throws IOException {
+			out = Files.newOutputStream(file);
+			generator = client.objectMapper().getFactory().createGenerator(out);
+			generator.setRootValueSeparator(null);
+		}
+
+		private JsonGenerator begin() throws IOException {
+			generator.writeStartObject();
+			return generator;
+		}
+
+		private void end() throws IOException {
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+		}
+
+		@Override
+		public void close() throws IOException {
+			generator.close();
+			out.close();
+		}
+	}
+}
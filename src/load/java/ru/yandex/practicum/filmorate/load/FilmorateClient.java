@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// HTTP-клиент к запущенному экземпляру приложения.
+final class FilmorateClient {
+
+	private static final String NDJSON = "application/x-ndjson";
+
+	private final String baseUrl;
+	private final HttpClient httpClient;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	FilmorateClient(String baseUrl) {
+		this.baseUrl = baseUrl;
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+	}
+
+	HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path));
+	}
+
+	int send(HttpRequest request) throws IOException, InterruptedException {
+		return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	JsonNode getJson(String path) {
+		try {
+			HttpResponse<String> response = httpClient.send(request(path).GET().build(),
+					HttpResponse.BodyHandlers.ofString());
+			return objectMapper.readTree(response.body());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// id всех записей из выгрузки NDJSON, например /export/users.
+	long[] exportIds(String path) {
+		try {
+			HttpResponse<Stream<String>> response = httpClient.send(request(path).GET().build(),
+					HttpResponse.BodyHandlers.ofLines());
+			try (Stream<String> lines = response.body()) {
+				return lines.filter(line -> !line.isBlank())
+						.mapToLong(line -> readTree(line).get("id").asLong())
+						.toArray();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	JsonNode importFile(String path, Path file) {
+		try {
+			HttpRequest request = request(path)
+					.header("Content-Type", NDJSON)
+					.POST(HttpRequest.BodyPublishers.ofFile(file))
+					.build();
+			HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() != 200) {
+				throw new IllegalStateException("Загрузка " + path + " завершилась с кодом " + response.statusCode()
+						+ ": " + response.body());
+			}
+			return objectMapper.readTree(response.body());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	long[] ids(JsonNode array) {
+		return StreamSupport.stream(array.spliterator(), false)
+				.mapToLong(node -> node.get("id").asLong())
+				.toArray();
+	}
+
+	ObjectMapper objectMapper() {
+		return objectMapper;
+	}
+
+	private JsonNode readTree(String line) {
+		try {
+			return objectMapper.readTree(line);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
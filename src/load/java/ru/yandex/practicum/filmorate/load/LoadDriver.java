@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Нагрузка по замкнутому циклу: каждый из threads потоков отправляет следующий запрос только после ответа
+// на предыдущий. Запросы выбираются случайно по весам из --mix, фильмы - по закону Ципфа, как в DatasetGenerator.
+// Задержки записываются в HdrHistogram; первые warmup секунд не учитываются. Отказы 503 (перегрузка)
+// считаются отдельно от ошибок; films и users - полные списки, которые ограничивает BulkheadFilter.
+//
+// mvn -Pload -DskipTests test-compile exec:exec \
+//     -Dload.args="--base-url=http://localhost:8080 --threads=32 --duration=60 --mix=film:40,popular:20,like:10"
+public final class LoadDriver {
+
+	private static final String DEFAULT_MIX = "film:30,popular:20,user:10,friends:15,common:10,like:10,unlike:5";
+
+	enum Operation {
+		FILM, POPULAR, USER, FRIENDS, COMMON, LIKE, UNLIKE, FILMS, USERS
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		Options options = new Options(args);
+		FilmorateClient client = new FilmorateClient(options.get("base-url", "http://localhost:8080"));
+		int threads = options.getInt("threads", 16);
+		long warmupNanos = options.getLong("warmup", 10) * 1_000_000_000L;
+		long durationNanos = options.getLong("duration", 60) * 1_000_000_000L;
+		Map<Operation, Integer> mix = parseMix(options.get("mix", DEFAULT_MIX));
+		long[] userIds = client.exportIds("/export/users");
+		long[] filmIds = client.exportIds("/export/films");
+		if (userIds.length < 2 || filmIds.length == 0) {
+			throw new IllegalStateException("Нужны хотя бы два пользователя и один фильм, сначала запустите DatasetGenerator.");
+		}
+		ZipfDistribution filmPopularity = new ZipfDistribution(filmIds.length, options.getDouble("zipf-exponent", 1.0));
+
+		Operation[] operations = mix.keySet().toArray(new Operation[0]);
+		int[] cumulativeWeights = new int[operations.length];
+		int totalWeight = 0;
+		for (int i = 0; i < operations.length; i++) {
+			totalWeight += mix.get(operations[i]);
+			cumulativeWeights[i] = totalWeight;
+		}
+
+		Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+		Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+		Map<Operation, LongAdder> rejections = new EnumMap<>(Operation.class);
+		for (Operation operation : operations) {
+			recorders.put(operation, new Recorder(3));
+			errors.put(operation, new LongAdder());
+			rejections.put(operation, new LongAdder());
+		}
+
+		long start = System.nanoTime();
+		long measureFrom = start + warmupNanos;
+		long end = measureFrom + durationNanos;
+		int weightSum = totalWeight;
+		List<Thread> workers = new ArrayList<>(threads);
+		for (int t = 0; t < threads; t++) {
+			Thread worker = new Thread(() -> {
+				Random random = ThreadLocalRandom.current();
+				long now = System.nanoTime();
+				while (now < end) {
+					int pick = random.nextInt(weightSum);
+					int index = 0;
+					while (cumulativeWeights[index] <= pick) {
+						index++;
+					}
+					Operation operation = operations[index];
+					HttpRequest request = buildRequest(client, operation, random, userIds, filmIds, filmPopularity);
+					long sent = System.nanoTime();
+					int status;
+					try {
+						status = client.send(request);
+					} catch (IOException e) {
+						status = 0;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					now = System.nanoTime();
+					if (sent >= measureFrom && now < end) {
+						recorders.get(operation).recordValue(Math.max(1, (now - sent) / 1_000));
+						if (status == 503) {
+							rejections.get(operation).increment();
+						} else if (status == 0 || status >= 500) {
+							errors.get(operation).increment();
+						}
+					}
+				}
+			}, "load-" + t);
+			workers.add(worker);
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		double seconds = durationNanos / 1e9;
+		Histogram total = new Histogram(3);
+		long totalErrors = 0;
+		long totalRejections = 0;
+		System.out.printf("%-10s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+				"операция", "запросов", "в сек", "p50 мс", "p99 мс", "p999 мс", "max мс", "ошибок", "503");
+		for (Operation operation : operations) {
+			Histogram histogram = recorders.get(operation).getIntervalHistogram();
+			total.add(histogram);
+			long operationErrors = errors.get(operation).sum();
+			long operationRejections = rejections.get(operation).sum();
+			totalErrors += operationErrors;
+			totalRejections += operationRejections;
+			print(operation.name().toLowerCase(), histogram, seconds, operationErrors, operationRejections);
+		}
+		print("всего", total, seconds, totalErrors, totalRejections);
+	}
+
+	private static HttpRequest buildRequest(FilmorateClient client, Operation operation, Random random,
+											long[] userIds, long[] filmIds, ZipfDistribution filmPopularity) {
+		long userId = userIds[random.nextInt(userIds.length)];
+		long filmId = filmIds[filmPopularity.sample(random)];
+		return switch (operation) {
+			case FILM -> client.request("/films/" + filmId).GET().build();
+			case POPULAR -> client.request("/films/popular?count=10").GET().build();
+			case USER -> client.request("/users/" + userId).GET().build();
+			case FRIENDS -> client.request("/users/" + userId + "/friends").GET().build();
+			case COMMON -> client.request("/users/" + userId + "/friends/common/"
+					+ userIds[random.nextInt(userIds.length)]).GET().build();
+			case LIKE -> client.request("/films/" + filmId + "/like/" + userId)
+					.PUT(HttpRequest.BodyPublishers.noBody()).build();
+			case UNLIKE -> client.request("/films/" + filmId + "/like/" + userId).DELETE().build();
+			case FILMS -> client.request("/films").GET().build();
+			case USERS -> client.request("/users").GET().build();
+		};
+	}
+
+	private static Map<Operation, Integer> parseMix(String mix) {
+		Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.split(":");
+			int weight = Integer.parseInt(parts[1].trim());
+			if (weight > 0) {
+				weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+			}
+		}
+		if (weights.isEmpty()) {
+			throw new IllegalArgumentException("Смесь запросов пуста: " + mix);
+		}
+		return weights;
+	}
+
+	private static void print(String name, Histogram histogram, double seconds, long errors, long rejections) {
+		System.out.printf("%-10s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d %8d%n",
+				name,
+				histogram.getTotalCount(),
+				histogram.getTotalCount() / seconds,
+				histogram.getValueAtPercentile(50) / 1000.0,
+				histogram.getValueAtPercentile(99) / 1000.0,
+				histogram.getValueAtPercentile(99.9) / 1000.0,
+				histogram.getMaxValue() / 1000.0,
+				errors,
+				rejections);
+	}
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Аргументы командной строки вида --ключ=значение.
+final class Options {
+
+	private final Map<String, String> values = new HashMap<>();
+
+	Options(String[] args) {
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Ожидается аргумент вида --ключ=значение: " + arg);
+			}
+			int separator = arg.indexOf('=');
+			values.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+	}
+
+	String get(String key, String defaultValue) {
+		return values.getOrDefault(key, defaultValue);
+	}
+
+	int getInt(String key, int defaultValue) {
+		return values.containsKey(key) ? Integer.parseInt(values.get(key)) : defaultValue;
+	}
+
+	long getLong(String key, long defaultValue) {
+		return values.containsKey(key) ? Long.parseLong(values.get(key)) : defaultValue;
+	}
+
+	double getDouble(String key, double defaultValue) {
+		return values.containsKey(key) ? Double.parseDouble(values.get(key)) : defaultValue;
+	}
+}
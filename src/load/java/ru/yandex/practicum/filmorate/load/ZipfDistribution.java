@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Распределение Ципфа на рангах 0..size-1: вероятность ранга k пропорциональна 1 / (k + 1)^exponent.
+final class ZipfDistribution {
+
+	private final double[] cumulative;
+
+	ZipfDistribution(int size, double exponent) {
+		cumulative = new double[size];
+		double sum = 0;
+		for (int rank = 0; rank < size; rank++) {
+			sum += 1 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = sum;
+		}
+		for (int rank = 0; rank < size; rank++) {
+			cumulative[rank] /= sum;
+		}
+	}
+
+	int sample(Random random) {
+		int position = Arrays.binarySearch(cumulative, random.nextDouble());
+		int rank = position >= 0 ? position : -position - 1;
+		return Math.min(rank, cumulative.length - 1);
+	}
+}
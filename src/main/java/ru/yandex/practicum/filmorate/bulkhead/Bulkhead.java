@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ограничение числа одновременных запросов одного маршрута. Сверх лимита запрос ждёт в очереди не дольше
+// maxWait; при заполненной очереди или истёкшем ожидании он сразу получает отказ и не занимает ни поток
+// базы, ни соединение. Если задана целевая задержка, лимит подстраивается под наблюдаемую (AIMD):
+// завершение быстрее цели при полной загрузке прибавляет 1/limit, превышение цели умножает лимит на backoff,
+// но не чаще раза за targetLatency, чтобы одна волна медленных ответов не обрушила лимит до минимума.
+public class Bulkhead {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long targetLatencyNanos;
+    private final double backoff;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long lastDecrease = System.nanoTime();
+
+    public Bulkhead(String name, int minLimit, int maxLimit, int maxQueue, long maxWaitNanos,
+                    long targetLatencyNanos, double backoff) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Некорректные границы лимита " + name + ": " + minLimit + ".." + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWaitNanos;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoff = backoff;
+        this.limit = maxLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Очередь справедливая: пока в ней кто-то ждёт, новый запрос встаёт за ним, даже если место освободилось.
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (queued == 0 && inFlight < currentLimit()) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= maxQueue) {
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= currentLimit();
+            inFlight--;
+            int before = currentLimit();
+            adapt(latencyNanos, saturated);
+            if (currentLimit() > before) {
+                released.signalAll();
+            } else {
+                released.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adapt(long latencyNanos, boolean saturated) {
+        if (targetLatencyNanos <= 0) {
+            return;
+        }
+        if (latencyNanos > targetLatencyNanos) {
+            long now = System.nanoTime();
+            if (now - lastDecrease >= targetLatencyNanos) {
+                limit = Math.max(minLimit, limit * backoff);
+                lastDecrease = now;
+            }
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static Bulkhead of(String name, BulkheadProperties.Route route) {
+        return new Bulkhead(name, route.getMinConcurrent(), route.getMaxConcurrent(), route.getMaxQueue(),
+                route.getMaxWait().toNanos(), route.getTargetLatency().toNanos(), route.getBackoff());
+    }
+
+    @Override
+    public String toString() {
+        return name + "[limit=" + getLimit() + ", inFlight=" + getInFlight() + ", queued=" + getQueued() + "]";
+    }
+}
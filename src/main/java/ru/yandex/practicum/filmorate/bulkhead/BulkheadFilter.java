@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Изоляция дорогих маршрутов (полные списки, выгрузки): их одновременные запросы ограничены своим
+// Bulkhead, лишние быстро получают 503 с Retry-After, поэтому потоки Tomcat и соединения с базой остаются
+// для точечных запросов. Место освобождается по завершении ответа, в том числе потокового (асинхронного).
+// Фильтр стоит после ConditionalGetFilter: ответ 304 не занимает место.
+@Component
+@ConditionalOnProperty(name = "filmorate.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
+@Slf4j
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private static final String REJECTED_BODY =
+            "{\"error\":\"Слишком много одновременных запросов, повторите запрос позже.\"}";
+
+    private final List<RouteBulkhead> bulkheads = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public BulkheadFilter(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        properties.getRoutes().forEach((name, route) -> {
+            Bulkhead bulkhead = Bulkhead.of(name, route);
+            Gauge.builder("filmorate.bulkhead.limit", bulkhead, Bulkhead::getLimit)
+                    .description("Текущий лимит одновременных запросов")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder("filmorate.bulkhead.in.flight", bulkhead, Bulkhead::getInFlight)
+                    .description("Выполняемые запросы")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder("filmorate.bulkhead.queued", bulkhead, Bulkhead::getQueued)
+                    .description("Запросы в очереди")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Counter rejected = Counter.builder("filmorate.bulkhead.rejected")
+                    .description("Запросы, отклонённые с 503")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Timer waitTime = Timer.builder("filmorate.bulkhead.wait")
+                    .description("Ожидание места, включая отклонённые запросы")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            bulkheads.add(new RouteBulkhead(route, bulkhead, rejected, waitTime));
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return find(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RouteBulkhead routeBulkhead = find(request);
+        Bulkhead bulkhead = routeBulkhead.bulkhead();
+        long arrived = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long started = System.nanoTime();
+        routeBulkhead.waitTime().record(started - arrived, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            routeBulkhead.rejected().increment();
+            log.debug("{} {}: запрос отклонён, {}", request.getMethod(), request.getRequestURI(), bulkhead);
+            reject(response, routeBulkhead.route());
+            return;
+        }
+
+        Runnable release = releaseOnce(bulkhead, started);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private RouteBulkhead find(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+        for (RouteBulkhead routeBulkhead : bulkheads) {
+            BulkheadProperties.Route route = routeBulkhead.route();
+            if (route.getMethod().equalsIgnoreCase(method)
+                    && route.getPaths().stream().anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+                return routeBulkhead;
+            }
+        }
+        return null;
+    }
+
+    private static void reject(HttpServletResponse response, BulkheadProperties.Route route) throws IOException {
+        long retryAfter = Math.max(1, (route.getRetryAfter().toMillis() + 999) / 1000);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(REJECTED_BODY);
+    }
+
+    private static Runnable releaseOnce(Bulkhead bulkhead, long started) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release(System.nanoTime() - started);
+            }
+        };
+    }
+
+    private record RouteBulkhead(BulkheadProperties.Route route, Bulkhead bulkhead, Counter rejected, Timer waitTime) {
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Маршруты с ограничением одновременных запросов: filmorate.bulkhead.routes.<имя>.*
+// Запрос попадает в первый маршрут, у которого совпали метод и один из шаблонов путей.
+@Component
+@ConfigurationProperties("filmorate.bulkhead")
+@Data
+public class BulkheadProperties {
+
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+        private String method = "GET";
+        private List<String> paths = new ArrayList<>();
+        private int maxConcurrent = 8;
+        // нижняя граница адаптивного лимита
+        private int minConcurrent = 1;
+        private int maxQueue = 16;
+        private Duration maxWait = Duration.ofMillis(100);
+        // 0 - лимит постоянный и равен maxConcurrent
+        private Duration targetLatency = Duration.ZERO;
+        private double backoff = 0.9;
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
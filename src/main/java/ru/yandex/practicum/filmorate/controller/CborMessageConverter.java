@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+// Ответы в CBOR (Accept: application/cbor) с теми же настройками Jackson, что и JSON.
+@Component
+public class CborMessageConverter extends MappingJackson2CborHttpMessageConverter {
+
+    public CborMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        super(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
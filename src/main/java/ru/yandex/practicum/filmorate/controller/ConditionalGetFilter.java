@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.storage.DataVersions;
+
+import java.io.IOException;
+
+// Условные GET для часто опрашиваемых списков. ETag строится из версий данных, от которых зависит ответ,
+// поэтому совпавший If-None-Match получает 304 без обращения к сервису и базе.
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 20)
+@RequiredArgsConstructor
+public class ConditionalGetFilter extends OncePerRequestFilter {
+
+    private final DataVersions dataVersions;
+    private final ResponseFormats responseFormats;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method)) || currentEtag(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Версия читается до данных: если данные изменятся во время запроса, следующий опрос получит новый ETag.
+        String etag = currentEtag(request);
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        chain.doFilter(request, response);
+    }
+
+    private String currentEtag(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.equals("/films/popular")) {
+            return etag(request, "p", dataVersions.getFilms(), dataVersions.getLikes(),
+                    dataVersions.getReferenceData());
+        }
+        if (path.equals("/films/search")) {
+            return etag(request, "s", dataVersions.getFilms(), dataVersions.getLikes());
+        }
+        if (path.equals("/films")) {
+            return etag(request, "f", dataVersions.getFilms(), dataVersions.getReferenceData());
+        }
+        if (pathMatcher.match("/genres/**", path) || pathMatcher.match("/mpa/**", path)) {
+            return etag(request, "r", dataVersions.getReferenceData());
+        }
+        return null;
+    }
+
+    // ETag слабый: одно и то же представление может уйти сжатым и несжатым. Для CBOR и Smile к нему
+    // добавляется формат, чтобы закэшированный JSON не подтверждался запросом в другом формате.
+    private String etag(HttpServletRequest request, String kind, long... versions) {
+        StringBuilder etag = new StringBuilder("W/\"").append(kind).append('-')
+                .append(Long.toString(dataVersions.getEpoch(), 36));
+        for (long version : versions) {
+            etag.append('-').append(version);
+        }
+        String format = formatSuffix(request.getHeader(HttpHeaders.ACCEPT));
+        if (format != null) {
+            etag.append('-').append(format);
+        }
+        return etag.append('"').toString();
+    }
+
+    private String formatSuffix(String accept) {
+        try {
+            ResponseFormats.Format format = responseFormats.negotiate(accept);
+            return format.isJson() ? null : format.mediaType().getSubtype();
+        } catch (HttpMediaTypeNotAcceptableException | InvalidMediaTypeException e) {
+            // Ответ 406 или 400 сформирует Spring MVC, ETag для него не важен.
+            return null;
+        }
+    }
+
+    // If-None-Match сравнивается слабым сравнением (RFC 9110, 13.1.2): префикс W/ не учитывается.
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag.substring(2))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
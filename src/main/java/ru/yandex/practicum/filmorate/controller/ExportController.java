@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+// Выгрузка пишется прямо в ответ в асинхронной задаче со своим тайм-аутом: полная выгрузка может идти
+// дольше стандартного тайм-аута асинхронного запроса, который остаётся в силе для остальных запросов.
+@RestController
+@RequestMapping("/export")
+@Slf4j
+public class ExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ExportService exportService;
+    private final long timeoutMillis;
+
+    public ExportController(ExportService exportService,
+                            @Value("${filmorate.export.timeout:30m}") Duration timeout) {
+        this.exportService = exportService;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @GetMapping("/films")
+    public WebAsyncTask<Void> exportFilms(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+            HttpServletResponse response) {
+        log.info("Запрошена выгрузка фильмов.");
+        return ndjson(acceptEncoding, response, exportService::exportFilms);
+    }
+
+    @GetMapping("/users")
+    public WebAsyncTask<Void> exportUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+            HttpServletResponse response) {
+        log.info("Запрошена выгрузка пользователей.");
+        return ndjson(acceptEncoding, response, exportService::exportUsers);
+    }
+
+    @GetMapping("/likes")
+    public WebAsyncTask<Void> exportLikes(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+            HttpServletResponse response) {
+        log.info("Запрошена выгрузка лайков.");
+        return ndjson(acceptEncoding, response, exportService::exportLikes);
+    }
+
+    @GetMapping("/friends")
+    public WebAsyncTask<Void> exportFriendships(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+            HttpServletResponse response) {
+        log.info("Запрошена выгрузка дружбы пользователей.");
+        return ndjson(acceptEncoding, response, exportService::exportFriendships);
+    }
+
+    // Сжатие включается, если клиент принимает gzip. При ошибке поток gzip не завершается, чтобы
+    // оборванная выгрузка не выглядела у клиента целым архивом.
+    private WebAsyncTask<Void> ndjson(String acceptEncoding, HttpServletResponse response, StreamingResponseBody export) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new WebAsyncTask<>(timeoutMillis, () -> {
+            OutputStream out = response.getOutputStream();
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                export.writeTo(gzipOut);
+                gzipOut.finish();
+            } else {
+                export.writeTo(out);
+            }
+            out.flush();
+            return null;
+        });
+    }
+
+    // Кодировки через запятую с необязательным весом: "gzip;q=0" отказывается от gzip, "*" принимает
+    // любую кодировку, кроме явно перечисленных.
+    static boolean acceptsGzip(String acceptEncoding) {
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            double quality = quality(parts);
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
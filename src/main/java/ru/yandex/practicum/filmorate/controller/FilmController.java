@@ -1,82 +1,177 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
 
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping("/films")
 @Slf4j
 @Validated
-@RequiredArgsConstructor
 public class FilmController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_PAGE_SIZE = MAX_PAGE_SIZE;
+
     private final FilmService filmService;
+    private final ImportService importService;
+    private final ResponseFormats responseFormats;
+    private final long streamTimeoutMillis;
+
+    public FilmController(FilmService filmService,
+                          ImportService importService,
+                          ResponseFormats responseFormats,
+                          @Value("${filmorate.films.stream-timeout:10m}") Duration streamTimeout) {
+        this.filmService = filmService;
+        this.importService = importService;
+        this.responseFormats = responseFormats;
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+    }
 
     @GetMapping("/{id}")
     public Film findById(@PathVariable Long id) {
-        log.info("Запрошен фильм с id: {}", id);
+        log.debug("Запрошен фильм с id: {}", id);
         Film film = filmService.findById(id);
-        log.info("Найден фильм: {}", film);
+        log.info("Найден фильм с id: {}", film.getId());
         return film;
     }
 
+    // Список пишется в асинхронной задаче со своим тайм-аутом, как выгрузка: длинный список медленному
+    // клиенту может отдаваться дольше стандартного тайм-аута асинхронного запроса.
     @GetMapping
-    public Collection<Film> findAll() {
-        log.info("Запрошен список всех фильмов.");
-        Collection<Film> films = filmService.findAll();
-        log.info("Найдено фильмов: {}", films.size());
+    public WebAsyncTask<Void> findAll(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            HttpServletResponse response)
+            throws HttpMediaTypeNotAcceptableException {
+        log.debug("Запрошен потоковый список фильмов после id: {}", after);
+        // Тело пишется генератором напрямую, поэтому формат выбирается здесь, а не конвертером Spring MVC.
+        ResponseFormats.Format format = responseFormats.negotiate(accept);
+        ObjectMapper objectMapper = format.converter().getObjectMapper();
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        response.setContentType(format.mediaType().toString());
+        // Каждая страница читается отдельным коротким запросом, поэтому соединение с базой не удерживается,
+        // пока клиент принимает данные. При ошибке генератор не закрывается и конец массива не пишется:
+        // исключение доходит до контейнера, и он обрывает соединение вместо обрезанного ответа 200.
+        return new WebAsyncTask<>(streamTimeoutMillis, () -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+            generator.writeStartArray();
+            List<Film> page = filmService.findPage(after, STREAM_PAGE_SIZE);
+            while (!page.isEmpty()) {
+                for (Film film : page) {
+                    writer.writeValue(generator, film);
+                }
+                generator.flush();
+                page = page.size() < STREAM_PAGE_SIZE
+                        ? List.of()
+                        : filmService.findPage(page.get(page.size() - 1).getId(), STREAM_PAGE_SIZE);
+            }
+            generator.writeEndArray();
+            generator.close();
+            return null;
+        });
+    }
+
+    @GetMapping(params = "limit")
+    public List<Film> findPage(@RequestParam(defaultValue = "0") long after,
+                               @RequestParam @Positive @Max(MAX_PAGE_SIZE) int limit) {
+        log.debug("Запрошена страница фильмов после id: {}, размер: {}", after, limit);
+        List<Film> films = filmService.findPage(after, limit);
+        log.info("Найдено фильмов на странице: {}", films.size());
+        return films;
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(
+            @RequestParam @NotBlank(message = "Поисковый запрос не может быть пустым.") String q,
+            @RequestParam(defaultValue = "10") @Positive @Max(MAX_PAGE_SIZE) int limit) {
+        log.debug("Поиск фильмов по запросу: {}, размер: {}", q, limit);
+        List<Film> films = filmService.search(q, limit);
+        log.info("Найдено фильмов по запросу: {}", films.size());
         return films;
     }
 
     @PostMapping
     public Film create(@Valid @RequestBody Film film) {
-        log.info("Попытка создать фильм: {}", film);
+        log.debug("Попытка создать фильм: {}", film.getName());
         Film createdFilm = filmService.create(film);
-        log.info("Фильм успешно создан: {}", createdFilm);
+        log.info("Фильм успешно создан, id: {}", createdFilm.getId());
         return createdFilm;
     }
 
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importFilms(InputStream body) {
+        log.info("Загрузка фильмов из NDJSON.");
+        return importService.importFilms(body);
+    }
+
+    @PostMapping(path = "/likes/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importLikes(InputStream body) {
+        log.info("Загрузка лайков из NDJSON.");
+        return importService.importLikes(body);
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film film) {
-        log.info("Попытка обновить фильм: {}", film);
+        log.debug("Попытка обновить фильм с id: {}", film.getId());
         Film updatedFilm = filmService.update(film);
-        log.info("Фильм успешно обновлён: {}", updatedFilm);
+        log.info("Фильм успешно обновлён, id: {}", updatedFilm.getId());
         return updatedFilm;
     }
 
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable Long id, @PathVariable Long userId) {
-        log.info("Пользователь с id={} ставит лайк фильму с id={}", userId, id);
+        log.debug("Пользователь с id={} ставит лайк фильму с id={}", userId, id);
         filmService.addLike(id, userId);
         log.info("Пользователь с id={} успешно поставил лайк фильму с id={}", userId, id);
     }
 
     @DeleteMapping("/{id}/like/{userId}")
     public void removeLike(@PathVariable Long id, @PathVariable Long userId) {
-        log.info("Пользователь с id={} удаляет лайк у фильма с id={}", userId, id);
+        log.debug("Пользователь с id={} удаляет лайк у фильма с id={}", userId, id);
         filmService.removeLike(id, userId);
         log.info("Пользователь с id={} успешно удалил лайк у фильма с id={}", userId, id);
     }
 
     @GetMapping("/popular")
-    public Collection<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
-        log.info("Запрошен список популярных фильмов, количество: {}", count);
-        Collection<Film> popularFilms = filmService.getPopularFilms(count);
+    public Collection<Film> getPopularFilms(
+            @RequestParam(defaultValue = "10") @Positive @Max(MAX_PAGE_SIZE) int count,
+            @RequestParam(required = false) Long genreId,
+            @RequestParam(required = false) Integer year) {
+        log.debug("Запрошен список популярных фильмов, количество: {}, жанр: {}, год: {}", count, genreId, year);
+        Collection<Film> popularFilms = filmService.getPopularFilms(count, genreId, year);
         log.info("Найдено популярных фильмов: {}", popularFilms.size());
         return popularFilms;
     }
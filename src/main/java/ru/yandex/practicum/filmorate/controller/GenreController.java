@@ -22,16 +22,16 @@ public class GenreController {
     // Метод для получения жанра по ID
     @GetMapping("/{id}")
     public Genre findById(@PathVariable Long id) {
-        log.info("Запрашивается жанр с id: {}", id);
+        log.debug("Запрашивается жанр с id: {}", id);
         Genre genre = genreService.findById(id);
-        log.info("Найден жанр: {}", genre);
+        log.info("Найден жанр: {}", genre.getName());
         return genre;
     }
 
     // Метод для получения списка всех жанров
     @GetMapping
     public Collection<Genre> findAll() {
-        log.info("Запрашивается список всех жанров.");
+        log.debug("Запрашивается список всех жанров.");
         Collection<Genre> genres = genreService.findAll();
         log.info("Найдено жанров: {}", genres.size());
         return genres;
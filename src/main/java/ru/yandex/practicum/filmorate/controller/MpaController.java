@@ -21,15 +21,15 @@ public class MpaController {
 
     @GetMapping("/{id}")
     public Mpa findById(@PathVariable Long id) {
-        log.info("Запрошен MPA рейтинг с id: {}", id);
+        log.debug("Запрошен MPA рейтинг с id: {}", id);
         Mpa mpa = mpaService.findById(id);
-        log.info("Найден MPA рейтинг: {}", mpa);
+        log.info("Найден MPA рейтинг: {}", mpa.getName());
         return mpa;
     }
 
     @GetMapping
     public Collection<Mpa> findAll() {
-        log.info("Запрошен список всех MPA рейтингов.");
+        log.debug("Запрошен список всех MPA рейтингов.");
         Collection<Mpa> mpas = mpaService.findAll();
         log.info("Найдено MPA рейтингов: {}", mpas.size());
         return mpas;
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Выбор формата ответа по заголовку Accept для эндпоинтов, которые пишут тело сами (потоковый список
+// фильмов), и для ETag, который должен различаться у представлений в разных форматах.
+@Component
+public class ResponseFormats {
+
+    private final List<AbstractJackson2HttpMessageConverter> converters;
+
+    public ResponseFormats(MappingJackson2HttpMessageConverter jsonConverter,
+                           CborMessageConverter cborConverter,
+                           SmileMessageConverter smileConverter) {
+        this.converters = List.of(jsonConverter, cborConverter, smileConverter);
+    }
+
+    // Типы упорядочиваются по качеству, при равном качестве - по конкретности. Тип с q=0 означает
+    // "не присылать" и исключает все подходящие под него форматы, даже если их разрешает */*.
+    public Format negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> acceptedTypes = new ArrayList<>(accept == null || accept.isBlank()
+                ? List.of(MediaType.ALL)
+                : MediaType.parseMediaTypes(accept));
+        List<MediaType> rejectedTypes = acceptedTypes.stream()
+                .filter(type -> type.getQualityValue() == 0)
+                .toList();
+        acceptedTypes.removeAll(rejectedTypes);
+        MimeTypeUtils.sortBySpecificity(acceptedTypes);
+        acceptedTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType acceptedType : acceptedTypes) {
+            for (AbstractJackson2HttpMessageConverter converter : converters) {
+                for (MediaType supportedType : converter.getSupportedMediaTypes()) {
+                    if (acceptedType.isCompatibleWith(supportedType) && supportedType.isConcrete()
+                            && rejectedTypes.stream().noneMatch(rejected -> rejected.includes(supportedType))) {
+                        return new Format(supportedType, converter);
+                    }
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(converters.stream()
+                .flatMap(converter -> converter.getSupportedMediaTypes().stream())
+                .toList());
+    }
+
+    public record Format(MediaType mediaType, AbstractJackson2HttpMessageConverter converter) {
+
+        public boolean isJson() {
+            return converter instanceof MappingJackson2HttpMessageConverter;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+// Ответы в Smile (Accept: application/x-jackson-smile) с теми же настройками Jackson, что и JSON.
+@Component
+public class SmileMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+    public SmileMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        super(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
@@ -1,8 +1,11 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,10 +14,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.ImportService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 @RestController
@@ -24,19 +33,24 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final int MAX_SUGGESTIONS = 100;
+    private static final int MAX_RECOMMENDATIONS = 100;
+
     private final UserService userService;
+    private final FilmService filmService;
+    private final ImportService importService;
 
     @GetMapping("/{id}")
     public User findById(@PathVariable Long id) {
-        log.info("Запрошен пользователь с id: {}", id);
+        log.debug("Запрошен пользователь с id: {}", id);
         User user = userService.findById(id);
-        log.info("Найден пользователь: {}", user);
+        log.info("Найден пользователь с id: {}", user.getId());
         return user;
     }
 
     @GetMapping
     public Collection<User> findAll() {
-        log.info("Запрошен список всех пользователей.");
+        log.debug("Запрошен список всех пользователей.");
         Collection<User> users = userService.findAll();
         log.info("Найдено пользователей: {}", users.size());
         return users;
@@ -44,37 +58,49 @@ public class UserController {
 
     @PostMapping
     public User create(@Valid @RequestBody User user) {
-        log.info("Попытка создать пользователя: {}", user);
+        log.debug("Попытка создать пользователя: {}", user.getLogin());
         User createdUser = userService.create(user);
-        log.info("Пользователь успешно создан: {}", createdUser);
+        log.info("Пользователь успешно создан, id: {}", createdUser.getId());
         return createdUser;
     }
 
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importUsers(InputStream body) {
+        log.info("Загрузка пользователей из NDJSON.");
+        return importService.importUsers(body);
+    }
+
+    @PostMapping(path = "/friends/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ImportReport importFriendships(InputStream body) {
+        log.info("Загрузка дружбы пользователей из NDJSON.");
+        return importService.importFriendships(body);
+    }
+
     @PutMapping
     public User update(@Valid @RequestBody User user) {
-        log.info("Попытка обновить пользователя: {}", user);
+        log.debug("Попытка обновить пользователя с id: {}", user.getId());
         User updatedUser = userService.update(user);
-        log.info("Пользователь успешно обновлён: {}", updatedUser);
+        log.info("Пользователь успешно обновлён, id: {}", updatedUser.getId());
         return updatedUser;
     }
 
     @PutMapping("/{id}/friends/{friendId}")
     public void addFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        log.info("Пользователь с id={} добавляет в друзья пользователя с id={}", id, friendId);
+        log.debug("Пользователь с id={} добавляет в друзья пользователя с id={}", id, friendId);
         userService.addFriend(id, friendId);
         log.info("Пользователь с id={} успешно добавил друга с id={}", id, friendId);
     }
 
     @DeleteMapping("/{id}/friends/{friendId}")
     public void removeFriend(@PathVariable Long id, @PathVariable Long friendId) {
-        log.info("Пользователь с id={} удаляет из друзей пользователя с id={}", id, friendId);
+        log.debug("Пользователь с id={} удаляет из друзей пользователя с id={}", id, friendId);
         userService.removeFriend(id, friendId);
         log.info("Пользователь с id={} успешно удалил друга с id={}", id, friendId);
     }
 
     @GetMapping("/{id}/friends")
     public Collection<User> getFriends(@PathVariable Long id) {
-        log.info("Запрос списка друзей пользователя с id={}", id);
+        log.debug("Запрос списка друзей пользователя с id={}", id);
         Collection<User> friends = userService.getFriends(id);
         log.info("Найдено друзей: {}", friends.size());
         return friends;
@@ -82,9 +108,29 @@ public class UserController {
 
     @GetMapping("/{id}/friends/common/{otherId}")
     public Collection<User> getCommonFriends(@PathVariable Long id, @PathVariable Long otherId) {
-        log.info("Запрос списка общих друзей пользователей с id={} и id={}", id, otherId);
+        log.debug("Запрос списка общих друзей пользователей с id={} и id={}", id, otherId);
         Collection<User> commonFriends = userService.getCommonFriends(id, otherId);
         log.info("Найдено общих друзей: {}", commonFriends.size());
         return commonFriends;
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public Collection<User> getFriendSuggestions(@PathVariable Long id,
+                                                 @RequestParam(defaultValue = "10")
+                                                 @Positive @Max(MAX_SUGGESTIONS) int limit) {
+        log.debug("Запрос рекомендаций друзей для пользователя с id={}, limit={}", id, limit);
+        Collection<User> suggestions = userService.getFriendSuggestions(id, limit);
+        log.info("Найдено рекомендаций друзей: {}", suggestions.size());
+        return suggestions;
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> getRecommendations(@PathVariable Long id,
+                                               @RequestParam(defaultValue = "10")
+                                               @Positive @Max(MAX_RECOMMENDATIONS) int limit) {
+        log.debug("Запрос рекомендаций фильмов для пользователя с id={}, limit={}", id, limit);
+        Collection<Film> recommendations = filmService.getRecommendations(id, limit);
+        log.info("Найдено рекомендованных фильмов: {}", recommendations.size());
+        return recommendations;
+    }
 }
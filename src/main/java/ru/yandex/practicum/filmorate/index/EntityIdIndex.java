@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+// Множества id существующих пользователей и фильмов для проверок существования без запросов к базе.
+// Индекс пополняют только сервисы, поэтому строка, добавленная в базу в обход них (вручную или другим
+// экземпляром приложения), ищется в базе при промахе и после этого тоже попадает в индекс. Проверка
+// при промахе читает только id, поэтому запрос несуществующего id не собирает запись целиком.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EntityIdIndex {
+
+    private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
+
+    private final LongBitSet userIds = new LongBitSet();
+    private final LongBitSet filmIds = new LongBitSet();
+
+    @PostConstruct
+    public void rebuild() {
+        userIds.clear();
+        filmIds.clear();
+        userStorage.forEachId(userIds::add);
+        filmStorage.forEachId(filmIds::add);
+        log.info("Индекс id пользователей и фильмов построен.");
+    }
+
+    public boolean userExists(long userId) {
+        if (userIds.contains(userId)) {
+            return true;
+        }
+        if (!userStorage.existsById(userId)) {
+            return false;
+        }
+        userIds.add(userId);
+        return true;
+    }
+
+    public boolean filmExists(long filmId) {
+        if (filmIds.contains(filmId)) {
+            return true;
+        }
+        if (!filmStorage.existsById(filmId)) {
+            return false;
+        }
+        filmIds.add(filmId);
+        return true;
+    }
+
+    public void addUser(long userId) {
+        userIds.add(userId);
+    }
+
+    public void addFilm(long filmId) {
+        filmIds.add(filmId);
+    }
+}
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Рейтинги фильмов по количеству лайков: общий, по жанру, по году выпуска и по жанру и году вместе.
+// Фильм входит во все рейтинги своих жанров и года, поэтому выборка с фильтром читает первые записи
+// готового рейтинга так же, как общая. При равенстве лайков выше фильм с меньшим id.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class FilmPopularityIndex {
+
+    private static final Comparator<Entry> RANKING_ORDER = Comparator
+            .comparingLong(Entry::likes).reversed()
+            .thenComparingLong(Entry::filmId);
+    private static final Bucket ALL = new Bucket(null, null);
+
+    private final FilmLikeStorage filmLikeStorage;
+    private final FilmStorage filmStorage;
+
+    private final Map<Long, Long> likeCounts = new HashMap<>();
+    private final Map<Long, List<Bucket>> filmBuckets = new HashMap<>();
+    private final Map<Bucket, NavigableSet<Entry>> rankings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Long, Long> counts = filmLikeStorage.getLikeCountsByFilm();
+        lock.writeLock().lock();
+        try {
+            likeCounts.clear();
+            filmBuckets.clear();
+            rankings.clear();
+            filmStorage.streamAll(0, film -> {
+                likeCounts.put(film.getId(), counts.getOrDefault(film.getId(), 0L));
+                place(film.getId(), buckets(film));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс популярности построен, фильмов: {}, рейтингов: {}", likeCounts.size(), rankings.size());
+    }
+
+    // Новый фильм или новые жанры и дата выпуска существующего: фильм переносится в рейтинги по ним.
+    public void addFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            likeCounts.putIfAbsent(film.getId(), 0L);
+            displace(film.getId());
+            place(film.getId(), buckets(film));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void incrementLikes(long filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void decrementLikes(long filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public long getLikes(long filmId) {
+        lock.readLock().lock();
+        try {
+            return likeCounts.getOrDefault(filmId, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> getTopFilmIds(int count) {
+        return getTopFilmIds(count, null, null);
+    }
+
+    // genreId и year могут быть null - без фильтра по жанру или году.
+    public List<Long> getTopFilmIds(int count, Long genreId, Integer year) {
+        if (count <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> ranking = rankings.get(new Bucket(genreId, year));
+            if (ranking == null) {
+                return List.of();
+            }
+            List<Long> filmIds = new ArrayList<>(Math.min(count, ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (iterator.hasNext() && filmIds.size() < count) {
+                filmIds.add(iterator.next().filmId());
+            }
+            return filmIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void changeLikes(long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            if (!filmBuckets.containsKey(filmId)) {
+                likeCounts.putIfAbsent(filmId, 0L);
+                place(filmId, List.of(ALL));
+            }
+            List<Bucket> buckets = filmBuckets.get(filmId);
+            displace(filmId);
+            likeCounts.put(filmId, Math.max(0L, likeCounts.get(filmId) + delta));
+            place(filmId, buckets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void place(long filmId, List<Bucket> buckets) {
+        Entry entry = new Entry(filmId, likeCounts.get(filmId));
+        for (Bucket bucket : buckets) {
+            rankings.computeIfAbsent(bucket, key -> new TreeSet<>(RANKING_ORDER)).add(entry);
+        }
+        filmBuckets.put(filmId, buckets);
+    }
+
+    private void displace(long filmId) {
+        List<Bucket> buckets = filmBuckets.remove(filmId);
+        if (buckets == null) {
+            return;
+        }
+        Entry entry = new Entry(filmId, likeCounts.get(filmId));
+        for (Bucket bucket : buckets) {
+            NavigableSet<Entry> ranking = rankings.get(bucket);
+            ranking.remove(entry);
+            if (ranking.isEmpty()) {
+                rankings.remove(bucket);
+            }
+        }
+    }
+
+    private static List<Bucket> buckets(Film film) {
+        Integer year = film.getReleaseDate() == null ? null : film.getReleaseDate().getYear();
+        Set<Long> genreIds = new LinkedHashSet<>();
+        if (film.getGenres() != null) {
+            for (Genre genre : film.getGenres()) {
+                genreIds.add(genre.getId());
+            }
+        }
+        List<Bucket> buckets = new ArrayList<>(2 + genreIds.size() * 2);
+        buckets.add(ALL);
+        if (year != null) {
+            buckets.add(new Bucket(null, year));
+        }
+        for (Long genreId : genreIds) {
+            buckets.add(new Bucket(genreId, null));
+            if (year != null) {
+                buckets.add(new Bucket(genreId, year));
+            }
+        }
+        return buckets;
+    }
+
+    private record Bucket(Long genreId, Integer year) {
+    }
+
+    private record Entry(long filmId, long likes) {
+    }
+}
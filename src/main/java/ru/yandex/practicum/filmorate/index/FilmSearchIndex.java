@@ -0,0 +1,477 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Поиск фильмов по словам названия и описания. Словарь терминов отсортирован (поиск по префиксу
+// последнего слова запроса), у каждого термина - отсортированный массив номеров документов, младший бит
+// номера отмечает вхождение в название. Опечатки ищутся по индексу триграмм словаря с проверкой
+// расстоянием Дамерау-Левенштейна. Запрос - пересечение по всем словам: самое редкое слово задаёт
+// кандидатов, остальные проверяются слиянием или двоичным поиском по их спискам. Лучшие по релевантности
+// (TF-IDF без учёта частоты в документе, название весит вдвое больше) переупорядочиваются с учётом лайков.
+@Component
+@Slf4j
+public class FilmSearchIndex {
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_EXPANSIONS = 64;
+    private static final int MIN_RERANK_POOL = 100;
+    private static final double EXACT_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final double FUZZY_WEIGHT = 0.6;
+    private static final double NAME_WEIGHT = 2.0;
+
+    private final FilmStorage filmStorage;
+    private final FilmPopularityIndex filmPopularityIndex;
+    private final double likeBoost;
+
+    private final TreeMap<String, Term> terms = new TreeMap<>();
+    private final List<Term> termsById = new ArrayList<>();
+    private final Map<String, IntList> termsByTrigram = new HashMap<>();
+    private final Map<Long, Integer> docsByFilmId = new HashMap<>();
+    private long[] filmIds = new long[1024];
+    private int[][] docTerms = new int[1024][];
+    private int docCount;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<Candidates> candidatePool = new ConcurrentLinkedQueue<>();
+
+    public FilmSearchIndex(FilmStorage filmStorage,
+                           FilmPopularityIndex filmPopularityIndex,
+                           @Value("${filmorate.search.like-boost:0.2}") double likeBoost) {
+        this.filmStorage = filmStorage;
+        this.filmPopularityIndex = filmPopularityIndex;
+        this.likeBoost = likeBoost;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            termsById.clear();
+            termsByTrigram.clear();
+            docsByFilmId.clear();
+            docCount = 0;
+            filmStorage.streamAll(0, this::indexLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс фильмов построен, фильмов: {}, терминов: {}", docCount, terms.size());
+    }
+
+    // Новый фильм или новая версия существующего: прежние термины фильма заменяются.
+    public void index(Film film) {
+        lock.writeLock().lock();
+        try {
+            indexLocked(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<List<Match>> matches = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                List<Match> tokenMatches = expand(tokens.get(i), i == tokens.size() - 1);
+                if (tokenMatches.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(tokenMatches);
+            }
+            matches.sort((first, second) -> Long.compare(postingCount(first), postingCount(second)));
+
+            Candidates candidates = borrowCandidates();
+            try {
+                candidates.union(matches.get(0));
+                for (int i = 1; i < matches.size() && candidates.size > 0; i++) {
+                    candidates.intersect(matches.get(i));
+                }
+                return rank(candidates, limit);
+            } finally {
+                candidatePool.offer(candidates);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexLocked(Film film) {
+        Integer existing = docsByFilmId.get(film.getId());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            for (int termId : docTerms[doc]) {
+                termsById.get(termId).remove(doc);
+            }
+        } else {
+            doc = docCount++;
+            if (doc == filmIds.length) {
+                filmIds = Arrays.copyOf(filmIds, doc * 2);
+                docTerms = Arrays.copyOf(docTerms, doc * 2);
+            }
+            filmIds[doc] = film.getId();
+            docsByFilmId.put(film.getId(), doc);
+        }
+
+        Map<String, Boolean> inName = new LinkedHashMap<>();
+        tokenize(film.getName()).forEach(token -> inName.put(token, true));
+        tokenize(film.getDescription()).forEach(token -> inName.putIfAbsent(token, false));
+        int[] termIds = new int[inName.size()];
+        int i = 0;
+        for (Map.Entry<String, Boolean> entry : inName.entrySet()) {
+            Term term = terms.computeIfAbsent(entry.getKey(), this::newTerm);
+            term.add(doc << 1 | (entry.getValue() ? 1 : 0));
+            termIds[i++] = term.id;
+        }
+        docTerms[doc] = termIds;
+    }
+
+    private Term newTerm(String text) {
+        Term term = new Term(termsById.size(), text);
+        termsById.add(term);
+        for (String trigram : trigrams(text)) {
+            termsByTrigram.computeIfAbsent(trigram, key -> new IntList()).add(term.id);
+        }
+        return term;
+    }
+
+    // Точное совпадение, затем для последнего слова - продолжения префикса, а если ничего не нашлось -
+    // термины на расстоянии 1 (2 для длинных слов) правки. Из продолжений берутся самые частые.
+    private List<Match> expand(String token, boolean last) {
+        List<Match> matches = new ArrayList<>();
+        Term exact = terms.get(token);
+        if (exact != null && exact.size > 0) {
+            matches.add(match(exact, EXACT_WEIGHT));
+        }
+        if (last && token.length() >= MIN_PREFIX_LENGTH) {
+            TopK frequent = new TopK(MAX_EXPANSIONS);
+            for (Term term : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                if (term.size > 0) {
+                    frequent.offer(term.id, term.size);
+                }
+            }
+            for (long termId : frequent.drainDescending()) {
+                matches.add(match(termsById.get((int) termId), PREFIX_WEIGHT));
+            }
+        }
+        if (matches.isEmpty() && token.length() >= MIN_FUZZY_LENGTH) {
+            addFuzzyMatches(token, matches);
+        }
+        return matches;
+    }
+
+    private void addFuzzyMatches(String token, List<Match> matches) {
+        int maxEdits = token.length() >= 8 ? 2 : 1;
+        Set<String> tokenTrigrams = trigrams(token);
+        LongIntCounter shared = new LongIntCounter(256);
+        for (String trigram : tokenTrigrams) {
+            IntList termIds = termsByTrigram.get(trigram);
+            if (termIds != null) {
+                for (int i = 0; i < termIds.size; i++) {
+                    shared.increment(termIds.values[i]);
+                }
+            }
+        }
+        // Одна правка меняет не больше трёх триграмм.
+        int minShared = Math.max(1, tokenTrigrams.size() - 3 * maxEdits);
+        TopK frequent = new TopK(MAX_EXPANSIONS);
+        Map<Integer, Integer> distances = new HashMap<>();
+        shared.forEach((termId, count) -> {
+            Term term = termsById.get((int) termId);
+            if (count < minShared || term.size == 0 || Math.abs(term.text.length() - token.length()) > maxEdits) {
+                return;
+            }
+            int distance = distance(token, term.text, maxEdits);
+            if (distance <= maxEdits) {
+                distances.put(term.id, distance);
+                frequent.offer(term.id, term.size);
+            }
+        });
+        for (long termId : frequent.drainDescending()) {
+            matches.add(match(termsById.get((int) termId), FUZZY_WEIGHT / distances.get((int) termId)));
+        }
+    }
+
+    private Candidates borrowCandidates() {
+        Candidates candidates = candidatePool.poll();
+        if (candidates == null) {
+            candidates = new Candidates();
+        }
+        candidates.reset(docCount);
+        return candidates;
+    }
+
+    private Match match(Term term, double weight) {
+        return new Match(term, weight * Math.log(1 + (double) docsByFilmId.size() / term.size));
+    }
+
+    private static long postingCount(List<Match> matches) {
+        long count = 0;
+        for (Match match : matches) {
+            count += match.term().size;
+        }
+        return count;
+    }
+
+    // Сначала отбираются лучшие по релевантности, затем они упорядочиваются по релевантности с учётом лайков.
+    private List<Long> rank(Candidates candidates, int limit) {
+        TopK relevant = new TopK(Math.max(MIN_RERANK_POOL, limit * 10));
+        for (int i = 0; i < candidates.size; i++) {
+            relevant.offer(candidates.docs[i], candidates.scores[candidates.docs[i]]);
+        }
+        TopK ranked = new TopK(limit);
+        for (long doc : relevant.drainDescending()) {
+            long filmId = filmIds[(int) doc];
+            double relevance = candidates.scores[(int) doc];
+            double popularity = 1 + likeBoost * Math.log1p(filmPopularityIndex.getLikes(filmId));
+            ranked.offer(filmId, relevance * popularity);
+        }
+        return Arrays.stream(ranked.drainDescending()).boxed().toList();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                token.append(c == 'ё' ? 'е' : c);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> trigrams(String text) {
+        String padded = "^" + text + "$";
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    // Расстояние Дамерау-Левенштейна (перестановка соседних букв - одна правка); при превышении max
+    // возвращается max + 1 без досчёта.
+    static int distance(String first, String second, int max) {
+        int[] previous2 = new int[second.length() + 1];
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[second.length()], max + 1);
+    }
+
+    private record Match(Term term, double weight) {
+    }
+
+    // Список вхождений термина: номер документа << 1 | признак вхождения в название, по возрастанию номера.
+    private static final class Term {
+
+        private final int id;
+        private final String text;
+        private int[] postings = new int[2];
+        private int size;
+
+        private Term(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        private void add(int posting) {
+            int doc = posting >>> 1;
+            int slot = size == 0 || postings[size - 1] >>> 1 < doc ? size : -find(doc) - 1;
+            if (size == postings.length) {
+                postings = Arrays.copyOf(postings, size * 2);
+            }
+            System.arraycopy(postings, slot, postings, slot + 1, size - slot);
+            postings[slot] = posting;
+            size++;
+        }
+
+        private void remove(int doc) {
+            int slot = find(doc);
+            if (slot >= 0) {
+                System.arraycopy(postings, slot + 1, postings, slot, size - slot - 1);
+                size--;
+            }
+        }
+
+        private int find(int doc) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int middleDoc = postings[middle] >>> 1;
+                if (middleDoc < doc) {
+                    low = middle + 1;
+                } else if (middleDoc > doc) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private double score(int posting, double weight) {
+            return (posting & 1) != 0 ? weight * NAME_WEIGHT : weight;
+        }
+    }
+
+    // Кандидаты запроса в плотных массивах по номеру документа. Принадлежность к кандидатам текущего шага
+    // отмечается меткой шага, поэтому массивы не очищаются между шагами и запросами. Массивы берутся из пула
+    // и переиспользуются: на запрос не выделяется память, пропорциональная каталогу.
+    private static final class Candidates {
+
+        private float[] scores = new float[0];
+        private float[] best = new float[0];
+        private int[] stamps = new int[0];
+        private int[] docs = new int[0];
+        private int size;
+        private int stamp;
+
+        private void reset(int docCount) {
+            if (stamps.length < docCount) {
+                int capacity = Math.max(docCount, stamps.length * 3 / 2);
+                scores = new float[capacity];
+                best = new float[capacity];
+                stamps = new int[capacity];
+                docs = new int[capacity];
+                stamp = 0;
+            }
+            if (stamp > Integer.MAX_VALUE - 1024) {
+                Arrays.fill(stamps, 0);
+                stamp = 0;
+            }
+            size = 0;
+        }
+
+        // Вхождения всех вариантов слова; документ, найденный несколькими вариантами, получает лучший балл.
+        private void union(List<Match> matches) {
+            int current = ++stamp;
+            for (Match match : matches) {
+                Term term = match.term();
+                for (int i = 0; i < term.size; i++) {
+                    int posting = term.postings[i];
+                    int doc = posting >>> 1;
+                    float score = (float) term.score(posting, match.weight());
+                    if (stamps[doc] != current) {
+                        stamps[doc] = current;
+                        scores[doc] = score;
+                        docs[size++] = doc;
+                    } else if (score > scores[doc]) {
+                        scores[doc] = score;
+                    }
+                }
+            }
+        }
+
+        // Оставляет кандидатов, найденных хотя бы одним вариантом слова. Короткий список кандидатов
+        // проверяется двоичным поиском по длинному списку вхождений, иначе список вхождений просматривается.
+        private void intersect(List<Match> matches) {
+            int previous = stamp;
+            int current = ++stamp;
+            for (Match match : matches) {
+                Term term = match.term();
+                if ((long) size * (32 - Integer.numberOfLeadingZeros(term.size)) < term.size) {
+                    for (int i = 0; i < size; i++) {
+                        int slot = term.find(docs[i]);
+                        if (slot >= 0) {
+                            matched(docs[i], (float) term.score(term.postings[slot], match.weight()), previous, current);
+                        }
+                    }
+                } else {
+                    for (int i = 0; i < term.size; i++) {
+                        int posting = term.postings[i];
+                        matched(posting >>> 1, (float) term.score(posting, match.weight()), previous, current);
+                    }
+                }
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = docs[i];
+                if (stamps[doc] == current) {
+                    scores[doc] += best[doc];
+                    docs[kept++] = doc;
+                }
+            }
+            size = kept;
+        }
+
+        private void matched(int doc, float score, int previous, int current) {
+            if (stamps[doc] == previous) {
+                stamps[doc] = current;
+                best[doc] = score;
+            } else if (stamps[doc] == current && score > best[doc]) {
+                best[doc] = score;
+            }
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
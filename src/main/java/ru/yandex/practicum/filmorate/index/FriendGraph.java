@@ -0,0 +1,160 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.UserFriendStorage;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Граф дружбы: для каждого пользователя хранится отсортированный массив id друзей.
+// Массивы не изменяются после публикации, изменение списка друзей заменяет массив целиком.
+@Component
+@Slf4j
+public class FriendGraph {
+
+    private static final long[] NO_FRIENDS = new long[0];
+
+    private final UserFriendStorage userFriendStorage;
+    private final int maxFanout;
+    private final Duration timeBudget;
+
+    private final ConcurrentMap<Long, long[]> adjacency = new ConcurrentHashMap<>();
+
+    public FriendGraph(UserFriendStorage userFriendStorage,
+                       @Value("${filmorate.friend-suggestions.max-fanout:500}") int maxFanout,
+                       @Value("${filmorate.friend-suggestions.time-budget:50ms}") Duration timeBudget) {
+        this.userFriendStorage = userFriendStorage;
+        this.maxFanout = maxFanout;
+        this.timeBudget = timeBudget;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        adjacency.clear();
+        AdjacencyBuilder builder = new AdjacencyBuilder();
+        userFriendStorage.forEachFriendship(builder::accept);
+        builder.finish();
+        log.info("Граф дружбы построен, пользователей с друзьями: {}", adjacency.size());
+    }
+
+    public long[] getFriendIds(long userId) {
+        return adjacency.getOrDefault(userId, NO_FRIENDS);
+    }
+
+    public boolean hasFriend(long userId, long friendId) {
+        return Arrays.binarySearch(getFriendIds(userId), friendId) >= 0;
+    }
+
+    public long[] getCommonFriendIds(long userId, long otherUserId) {
+        long[] first = getFriendIds(userId);
+        long[] second = getFriendIds(otherUserId);
+        long[] common = new long[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                common[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    // Кандидаты в друзья - друзья друзей, ранжированные по числу общих друзей. У каждого друга просматривается
+    // не больше maxFanout связей, а при исчерпании timeBudget возвращается результат по уже обойденным друзьям.
+    public long[] getFriendSuggestionIds(long userId, int limit) {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        long[] friends = getFriendIds(userId);
+        LongIntCounter mutualCounts = new LongIntCounter(Math.min(friends.length, maxFanout) * 4);
+        int visited = 0;
+        for (long friendId : friends) {
+            if (visited++ >= maxFanout || System.nanoTime() > deadline) {
+                log.debug("Подбор друзей для пользователя {} остановлен после {} из {} друзей",
+                        userId, visited - 1, friends.length);
+                break;
+            }
+            long[] friendsOfFriend = getFriendIds(friendId);
+            int scanned = Math.min(friendsOfFriend.length, maxFanout);
+            for (int i = 0; i < scanned; i++) {
+                long candidateId = friendsOfFriend[i];
+                if (candidateId != userId && Arrays.binarySearch(friends, candidateId) < 0) {
+                    mutualCounts.increment(candidateId);
+                }
+            }
+        }
+        TopK top = new TopK(limit);
+        mutualCounts.forEach(top::offer);
+        return top.drainDescending();
+    }
+
+    public void addFriend(long userId, long friendId) {
+        adjacency.compute(userId, (id, friends) -> {
+            long[] current = friends == null ? NO_FRIENDS : friends;
+            int position = Arrays.binarySearch(current, friendId);
+            if (position >= 0) {
+                return current;
+            }
+            int insertAt = -position - 1;
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = friendId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            return updated;
+        });
+    }
+
+    public void removeFriend(long userId, long friendId) {
+        adjacency.computeIfPresent(userId, (id, friends) -> {
+            int position = Arrays.binarySearch(friends, friendId);
+            if (position < 0) {
+                return friends;
+            }
+            if (friends.length == 1) {
+                return null;
+            }
+            long[] updated = new long[friends.length - 1];
+            System.arraycopy(friends, 0, updated, 0, position);
+            System.arraycopy(friends, position + 1, updated, position, friends.length - position - 1);
+            return updated;
+        });
+    }
+
+    // Строки дружбы приходят упорядоченными по user_id, поэтому список друзей собирается в один буфер.
+    private final class AdjacencyBuilder {
+
+        private long currentUserId = -1;
+        private long[] buffer = new long[16];
+        private int size;
+
+        private void accept(long userId, long friendId) {
+            if (userId != currentUserId) {
+                finish();
+                currentUserId = userId;
+            }
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            buffer[size++] = friendId;
+        }
+
+        private void finish() {
+            if (size > 0) {
+                long[] friends = Arrays.copyOf(buffer, size);
+                Arrays.sort(friends);
+                adjacency.put(currentUserId, friends);
+            }
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Разреженная матрица пользователь x фильм в двух направлениях: отсортированные id фильмов каждого
+// пользователя и id пользователей каждого фильма. Память пропорциональна числу лайков, а соседи
+// ищутся только среди пользователей, у которых есть хотя бы один общий с пользователем фильм.
+@Component
+@Slf4j
+public class LikeMatrix {
+
+    private static final long[] NO_IDS = new long[0];
+    // Меньше кандидатов дешевле посчитать в вызывающем потоке, чем раздавать по ядрам.
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final FilmLikeStorage filmLikeStorage;
+    private final int neighbours;
+    private final int parallelism;
+
+    private final ConcurrentMap<Long, SortedLongSet> filmsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, SortedLongSet> usersByFilm = new ConcurrentHashMap<>();
+
+    private ForkJoinPool scoringPool;
+
+    public LikeMatrix(FilmLikeStorage filmLikeStorage,
+                      @Value("${filmorate.recommendations.neighbours:20}") int neighbours,
+                      @Value("${filmorate.recommendations.parallelism:0}") int parallelism) {
+        this.filmLikeStorage = filmLikeStorage;
+        this.neighbours = neighbours;
+        this.parallelism = parallelism;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (scoringPool == null) {
+            scoringPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        }
+        filmsByUser.clear();
+        usersByFilm.clear();
+        // Лайки приходят упорядоченными по user_id, поэтому оба множества растут добавлением в конец.
+        filmLikeStorage.forEachLike(this::addLike);
+        log.info("Матрица лайков построена, пользователей с лайками: {}", filmsByUser.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scoringPool.shutdown();
+    }
+
+    public boolean hasLike(long filmId, long userId) {
+        SortedLongSet filmIds = filmsByUser.get(userId);
+        return filmIds != null && filmIds.contains(filmId);
+    }
+
+    public void addLike(long filmId, long userId) {
+        filmsByUser.compute(userId, (id, filmIds) -> withValue(filmIds, filmId));
+        usersByFilm.compute(filmId, (id, userIds) -> withValue(userIds, userId));
+    }
+
+    public void removeLike(long filmId, long userId) {
+        filmsByUser.computeIfPresent(userId, (id, filmIds) -> withoutValue(filmIds, filmId));
+        usersByFilm.computeIfPresent(filmId, (id, userIds) -> withoutValue(userIds, userId));
+    }
+
+    // Пользователи с наибольшим коэффициентом Жаккара по лайкам голосуют за свои фильмы, которых нет у userId;
+    // вес голоса равен сходству. Число общих фильмов набирается по спискам пользователей своих фильмов,
+    // сходство кандидатов при большом их числе считается параллельно.
+    public long[] getRecommendedFilmIds(long userId, int limit) {
+        long[] own = idsOf(filmsByUser, userId);
+        if (own.length == 0) {
+            return new long[0];
+        }
+        LongIntCounter commonCounts = new LongIntCounter(own.length * 16);
+        for (long filmId : own) {
+            for (long otherUserId : idsOf(usersByFilm, filmId)) {
+                if (otherUserId != userId) {
+                    commonCounts.increment(otherUserId);
+                }
+            }
+        }
+        long[] candidates = new long[commonCounts.size()];
+        int[] common = new int[candidates.length];
+        int[] position = new int[1];
+        commonCounts.forEach((otherUserId, count) -> {
+            candidates[position[0]] = otherUserId;
+            common[position[0]++] = count;
+        });
+
+        double[] similarities = new double[candidates.length];
+        IntStream positions = IntStream.range(0, candidates.length);
+        if (candidates.length >= PARALLEL_THRESHOLD) {
+            scoringPool.submit(() -> positions.parallel()
+                    .forEach(i -> similarities[i] = jaccard(own.length, candidates[i], common[i]))).join();
+        } else {
+            positions.forEach(i -> similarities[i] = jaccard(own.length, candidates[i], common[i]));
+        }
+
+        TopK nearest = new TopK(neighbours);
+        for (int i = 0; i < candidates.length; i++) {
+            nearest.offer(i, similarities[i]);
+        }
+
+        Map<Long, Double> filmScores = new HashMap<>();
+        for (long i : nearest.drainDescending()) {
+            double similarity = similarities[(int) i];
+            for (long filmId : idsOf(filmsByUser, candidates[(int) i])) {
+                if (Arrays.binarySearch(own, filmId) < 0) {
+                    filmScores.merge(filmId, similarity, Double::sum);
+                }
+            }
+        }
+
+        TopK recommended = new TopK(limit);
+        filmScores.forEach(recommended::offer);
+        return recommended.drainDescending();
+    }
+
+    // Размер множества другого пользователя читается отдельно от числа общих фильмов и может уже
+    // измениться, поэтому объединение не меньше пересечения.
+    private double jaccard(int ownSize, long otherUserId, int common) {
+        SortedLongSet otherFilmIds = filmsByUser.get(otherUserId);
+        int union = ownSize + (otherFilmIds == null ? 0 : otherFilmIds.size()) - common;
+        return (double) common / Math.max(union, common);
+    }
+
+    private static long[] idsOf(ConcurrentMap<Long, SortedLongSet> index, long key) {
+        SortedLongSet ids = index.get(key);
+        return ids == null ? NO_IDS : ids.toArray();
+    }
+
+    private static SortedLongSet withValue(SortedLongSet ids, long value) {
+        SortedLongSet updated = ids == null ? new SortedLongSet() : ids;
+        updated.add(value);
+        return updated;
+    }
+
+    // Пустое множество удаляется из карты в том же compute, поэтому параллельное добавление его не потеряет.
+    private static SortedLongSet withoutValue(SortedLongSet ids, long value) {
+        ids.remove(value);
+        return ids.size() == 0 ? null : ids;
+    }
+}
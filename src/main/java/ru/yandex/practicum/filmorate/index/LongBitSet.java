@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Растущий битсет для неотрицательных id: чтение без блокировок, запись под монитором.
+public class LongBitSet {
+
+    private volatile AtomicLongArray words = new AtomicLongArray(64);
+
+    public boolean contains(long id) {
+        if (id < 0) {
+            return false;
+        }
+        AtomicLongArray current = words;
+        long wordIndex = id >>> 6;
+        return wordIndex < current.length() && (current.get((int) wordIndex) & (1L << id)) != 0;
+    }
+
+    public synchronized void add(long id) {
+        if (id < 0 || (id >>> 6) >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Id вне допустимого диапазона: " + id);
+        }
+        int wordIndex = (int) (id >>> 6);
+        AtomicLongArray current = words;
+        if (wordIndex >= current.length()) {
+            int newLength = (int) Math.min(Integer.MAX_VALUE, Math.max((long) wordIndex + 1, current.length() * 2L));
+            AtomicLongArray grown = new AtomicLongArray(newLength);
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            words = grown;
+            current = grown;
+        }
+        current.set(wordIndex, current.get(wordIndex) | (1L << id));
+    }
+
+    public synchronized void clear() {
+        words = new AtomicLongArray(64);
+    }
+}
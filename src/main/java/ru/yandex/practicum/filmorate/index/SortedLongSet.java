@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.index;
+
+import java.util.Arrays;
+
+// Множество id в отсортированном массиве long без упаковки в объекты: поиск двоичный, вставка и удаление
+// сдвигают хвост массива. Методы выполняются под монитором множества, выборки возвращают копии.
+public class SortedLongSet {
+
+    private static final long[] NO_VALUES = new long[0];
+
+    private long[] values = new long[4];
+    private int size;
+
+    public synchronized boolean contains(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public synchronized boolean add(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public synchronized boolean remove(long value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long[] toArray() {
+        return size == 0 ? NO_VALUES : Arrays.copyOf(values, size);
+    }
+
+    // Не больше limit значений, строго больших after, по возрастанию.
+    public synchronized long[] after(long after, int limit) {
+        int index = Arrays.binarySearch(values, 0, size, after);
+        int from = index >= 0 ? index + 1 : -index - 1;
+        int to = (int) Math.min(size, (long) from + Math.max(0, limit));
+        return from >= to ? NO_VALUES : Arrays.copyOfRange(values, from, to);
+    }
+}
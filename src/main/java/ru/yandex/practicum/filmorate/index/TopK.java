@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.index;
+
+// Отбор k лучших id по убыванию веса (при равенстве - по возрастанию id) через min-кучу на массивах.
+public class TopK {
+
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopK(int k) {
+        ids = new long[Math.max(0, k)];
+        scores = new double[Math.max(0, k)];
+    }
+
+    public void offer(long id, double score) {
+        if (ids.length == 0) {
+            return;
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (isBetter(id, score, 0)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    // Возвращает id от лучшего к худшему; после вызова куча пуста.
+    public long[] drainDescending() {
+        long[] result = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private boolean isBetter(long id, double score, int slot) {
+        return score > scores[slot] || (score == scores[slot] && id < ids[slot]);
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!isBetter(ids[parent], scores[parent], slot)) {
+                break;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int worst = slot;
+            int left = 2 * slot + 1;
+            int right = left + 1;
+            if (left < size && isBetter(ids[worst], scores[worst], left)) {
+                worst = left;
+            }
+            if (right < size && isBetter(ids[worst], scores[worst], right)) {
+                worst = right;
+            }
+            if (worst == slot) {
+                return;
+            }
+            swap(slot, worst);
+            slot = worst;
+        }
+    }
+
+    private void swap(int first, int second) {
+        long id = ids[first];
+        ids[first] = ids[second];
+        ids[second] = id;
+        double score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+    }
+}
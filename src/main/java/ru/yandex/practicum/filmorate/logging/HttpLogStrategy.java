@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.List;
+
+// Тела запросов и ответов на путях body-excluded-paths не буферизуются и не пишутся в журнал,
+// остальные тела пишутся только для ответов со статусом не ниже body-min-status. Обработка ответа
+// вызывается до контроллера, когда статус ещё неизвестен, поэтому по статусу тела отбрасываются при записи,
+// а запрос в этом режиме пишется вместе с ответом.
+@Component
+public class HttpLogStrategy implements Strategy {
+
+    private final List<String> bodyExcludedPaths;
+    private final int bodyMinStatus;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public HttpLogStrategy(@Value("${filmorate.logging.http.body-excluded-paths:}") List<String> bodyExcludedPaths,
+                           @Value("${filmorate.logging.http.body-min-status:0}") int bodyMinStatus) {
+        this.bodyExcludedPaths = bodyExcludedPaths;
+        this.bodyMinStatus = bodyMinStatus;
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return isBodyExcluded(request) ? request.withoutBody() : request.withBody();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) throws IOException {
+        if (bodyMinStatus <= 0) {
+            sink.write(precorrelation, request);
+        }
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isBodyExcluded(request) ? response.withoutBody() : response.withBody();
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink)
+            throws IOException {
+        if (bodyMinStatus <= 0) {
+            sink.write(correlation, request, response);
+        } else if (response.getStatus() < bodyMinStatus) {
+            sink.writeBoth(correlation, request.withoutBody(), response.withoutBody());
+        } else {
+            sink.writeBoth(correlation, request, response);
+        }
+    }
+
+    private boolean isBodyExcluded(HttpRequest request) {
+        String path = request.getPath();
+        return bodyExcludedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+// Выборка запросов для журнала Logbook: в журнал попадает доля sample-rate запросов, остальные проходят
+// мимо Logbook без буферизации тел. Исключения из logbook.predicate.exclude применяются поверх выборки.
+@Component("requestCondition")
+public class SampledRequestCondition implements Predicate<HttpRequest> {
+
+    private final double sampleRate;
+
+    public SampledRequestCondition(@Value("${filmorate.logging.http.sample-rate:1.0}") double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public boolean test(HttpRequest request) {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
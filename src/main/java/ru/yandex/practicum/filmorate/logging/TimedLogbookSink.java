@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogFormatter;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Precorrelation;
+import org.zalando.logbook.Sink;
+import org.zalando.logbook.core.DefaultSink;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Стандартный Sink Logbook с замером времени, которое запрос тратит на форматирование и запись журнала.
+@Component
+public class TimedLogbookSink implements Sink {
+
+    private final Sink delegate;
+    private final Timer requestTimer;
+    private final Timer responseTimer;
+
+    public TimedLogbookSink(HttpLogFormatter formatter, HttpLogWriter writer, MeterRegistry meterRegistry) {
+        this.delegate = new DefaultSink(formatter, writer);
+        this.requestTimer = timer(meterRegistry, "request");
+        this.responseTimer = timer(meterRegistry, "response");
+    }
+
+    @Override
+    public boolean isActive() {
+        return delegate.isActive();
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.write(precorrelation, request);
+        } finally {
+            requestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response) throws IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.write(correlation, request, response);
+        } finally {
+            responseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("filmorate.logging.http")
+                .description("Время форматирования и записи журнала HTTP на запрос")
+                .tag("phase", phase)
+                .register(meterRegistry);
+    }
+}
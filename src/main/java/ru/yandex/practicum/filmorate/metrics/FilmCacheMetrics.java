@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+
+import java.util.function.ToDoubleFunction;
+
+// Статистика кэша фильмов; значения читаются из CacheStats при каждом снятии метрик.
+@Component
+@Profile("!in-memory")
+@RequiredArgsConstructor
+public class FilmCacheMetrics implements MeterBinder {
+
+    private final CachingFilmStorage cachingFilmStorage;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counter(registry, "filmorate.film.cache.requests", "result", "hit", CacheStats::hitCount);
+        counter(registry, "filmorate.film.cache.requests", "result", "miss", CacheStats::missCount);
+        counter(registry, "filmorate.film.cache.evictions", "cause", "any", CacheStats::evictionCount);
+        counter(registry, "filmorate.film.cache.load.failures", "cause", "any", CacheStats::loadFailureCount);
+    }
+
+    private void counter(MeterRegistry registry, String name, String tagKey, String tagValue,
+                         ToDoubleFunction<CacheStats> value) {
+        FunctionCounter.builder(name, cachingFilmStorage, storage -> value.applyAsDouble(storage.getStats()))
+                .tag(tagKey, tagValue)
+                .register(registry);
+    }
+}
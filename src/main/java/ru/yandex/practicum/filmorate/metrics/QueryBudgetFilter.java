@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+// Считает SQL-запросы каждого HTTP-запроса. При превышении бюджета или повторе одного и того же
+// запроса repeatThreshold и более раз (признак N+1) пишет предупреждение и увеличивает счётчик.
+@Component
+@ConditionalOnProperty(name = "filmorate.query-counter.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int budget;
+    private final int repeatThreshold;
+    private final List<String> excludedPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public QueryBudgetFilter(MeterRegistry meterRegistry,
+                             @Value("${filmorate.query-counter.budget:10}") int budget,
+                             @Value("${filmorate.query-counter.repeat-threshold:5}") int repeatThreshold,
+                             @Value("${filmorate.query-counter.excluded-paths:}") List<String> excludedPaths) {
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+        this.repeatThreshold = repeatThreshold;
+        this.excludedPaths = excludedPaths;
+    }
+
+    // Загрузки и выгрузки выполняют запросы пачками, бюджет на них не распространяется.
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return excludedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    // Потоковый список фильмов пишется в асинхронной задаче. Её запросы записываются в счётчик HTTP-запроса,
+    // а отчёт строится после завершения асинхронной обработки, когда все запросы уже выполнены.
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStats stats = QueryCounter.start();
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.registerCallableInterceptor(QueryBudgetFilter.class.getName(), new CallableProcessingInterceptor() {
+            private QueryStats previous;
+
+            @Override
+            public <T> void preProcess(NativeWebRequest webRequest, Callable<T> task) {
+                previous = QueryCounter.attach(stats);
+            }
+
+            @Override
+            public <T> void postProcess(NativeWebRequest webRequest, Callable<T> task, Object result) {
+                QueryCounter.detach(previous);
+            }
+
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                report(request, stats);
+            }
+        });
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            stats.close();
+            if (!asyncManager.isConcurrentHandlingStarted()) {
+                report(request, stats);
+            }
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+
+        DistributionSummary.builder("filmorate.request.queries")
+                .description("Число SQL-запросов на HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getQueryCount());
+        Timer.builder("filmorate.request.db")
+                .description("Суммарное время SQL-запросов на HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getTotalTime());
+
+        if (stats.getQueryCount() > budget) {
+            Counter.builder("filmorate.request.query.budget.exceeded")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {}: выполнено SQL-запросов {} при бюджете {}, время в базе {} мс",
+                    method, uri, stats.getQueryCount(), budget, stats.getTotalTime().toMillis());
+        }
+        Map<String, Integer> repeated = stats.getRepeatedShapes(repeatThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("filmorate.request.repeated.queries")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {}: повторяющиеся SQL-запросы (возможен N+1): {}", method, uri, repeated);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.util.concurrent.Callable;
+
+// Подсчёт SQL-запросов текущего потока. QueryBudgetFilter открывает счётчик на каждый HTTP-запрос;
+// тесты могут открыть свой вокруг вызова эндпоинта:
+//     try (QueryStats stats = QueryCounter.start()) {
+//         mockMvc.perform(get("/films/1"));
+//         assertThat(stats.getQueryCount()).isEqualTo(1);
+//     }
+// Вложенный счётчик передаёт свои запросы внешнему.
+public final class QueryCounter {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    // Задача, выполняемая в другом потоке, записывает запросы в счётчик потока, который её создал.
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        QueryStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            QueryStats previous = attach(stats);
+            try {
+                return task.call();
+            } finally {
+                detach(previous);
+            }
+        };
+    }
+
+    // Делает stats счётчиком текущего потока и возвращает прежний счётчик для detach.
+    static QueryStats attach(QueryStats stats) {
+        QueryStats previous = CURRENT.get();
+        CURRENT.set(stats);
+        return previous;
+    }
+
+    static void detach(QueryStats previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void record(String sql, long nanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.record(sql, nanos);
+        }
+    }
+
+    static void restore(QueryStats closed, QueryStats parent) {
+        if (CURRENT.get() == closed) {
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// SQL-запросы, выполненные потоком между QueryCounter.start() и close(). Запросы одинаковой формы
+// (после замены литералов и списков параметров на "?") считаются повторами одного запроса.
+public final class QueryStats implements AutoCloseable {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'[^']*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final QueryStats parent;
+    private final Map<String, Integer> countsByShape = new HashMap<>();
+    private int queryCount;
+    private long totalNanos;
+
+    QueryStats(QueryStats parent) {
+        this.parent = parent;
+    }
+
+    public synchronized int getQueryCount() {
+        return queryCount;
+    }
+
+    public synchronized Duration getTotalTime() {
+        return Duration.ofNanos(totalNanos);
+    }
+
+    // Формы запросов, выполненных не меньше minRepeats раз, по убыванию числа повторов.
+    public synchronized Map<String, Integer> getRepeatedShapes(int minRepeats) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        countsByShape.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minRepeats)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    @Override
+    public void close() {
+        QueryCounter.restore(this, parent);
+    }
+
+    void record(String sql, long nanos) {
+        String shape = sql == null ? "<batch>" : shape(sql);
+        for (QueryStats stats = this; stats != null; stats = stats.parent) {
+            stats.add(shape, nanos);
+        }
+    }
+
+    // Запросы могут приходить из параллельных подзапросов QueryFanOut.
+    private synchronized void add(String shape, long nanos) {
+        queryCount++;
+        totalNanos += nanos;
+        countsByShape.merge(shape, 1, Integer::sum);
+    }
+
+    private static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = PARAMETER_LIST.matcher(shape).replaceAll("?");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
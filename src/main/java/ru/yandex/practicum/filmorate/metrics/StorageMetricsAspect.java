@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+// Время и ошибки каждого метода интерфейсов хранилищ, а также число возвращённых записей.
+// Метрики помечаются классом реализации, поэтому кэш и база видны по отдельности.
+// Метры создаются один раз на пару класс-метод, на каждый вызов приходится только поиск в карте.
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StorageMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MeterKey, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+
+    @Around("execution(* ru.yandex.practicum.filmorate.storage.FilmStorage.*(..)) || " +
+            "execution(* ru.yandex.practicum.filmorate.storage.UserStorage.*(..)) || " +
+            "execution(* ru.yandex.practicum.filmorate.storage.FilmLikeStorage.*(..)) || " +
+            "execution(* ru.yandex.practicum.filmorate.storage.UserFriendStorage.*(..)) || " +
+            "execution(* ru.yandex.practicum.filmorate.storage.GenreStorage.*(..)) || " +
+            "execution(* ru.yandex.practicum.filmorate.storage.MpaStorage.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        MeterKey key = new MeterKey(ClassUtils.getUserClass(joinPoint.getTarget()), joinPoint.getSignature().getName());
+        Timer timer = timers.computeIfAbsent(key, this::createTimer);
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            int rows = countRows(result);
+            if (rows >= 0) {
+                rowSummaries.computeIfAbsent(key, this::createRowSummary).record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Counter.builder("filmorate.storage.errors")
+                    .description("Ошибки методов хранилищ")
+                    .tag("storage", key.storage().getSimpleName())
+                    .tag("method", key.method())
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        }
+    }
+
+    private Timer createTimer(MeterKey key) {
+        return Timer.builder("filmorate.storage")
+                .description("Время выполнения методов хранилищ")
+                .tag("storage", key.storage().getSimpleName())
+                .tag("method", key.method())
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary createRowSummary(MeterKey key) {
+        return DistributionSummary.builder("filmorate.storage.rows")
+                .description("Число записей, возвращённых методом хранилища")
+                .baseUnit("rows")
+                .tag("storage", key.storage().getSimpleName())
+                .tag("method", key.method())
+                .register(meterRegistry);
+    }
+
+    // -1 для результатов, которые не являются набором записей.
+    private static int countRows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return -1;
+    }
+
+    private record MeterKey(Class<?> storage, String method) {
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReport {
+    private long processed;
+
+    private long imported;
+
+    private long failed;
+
+    // Ошибки по номерам строк; в отчёт попадают только первые из них, остальные учитываются в failed.
+    private List<LineError> errors = new ArrayList<>();
+
+    public record LineError(long line, String message) {
+    }
+}
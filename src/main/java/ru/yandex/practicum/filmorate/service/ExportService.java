@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserFriendStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Function;
+
+// Выгрузка NDJSON страницами по ключу: каждая страница читается отдельным коротким запросом,
+// поэтому соединение с базой не удерживается, пока клиент принимает данные.
+@Service
+@Slf4j
+public class ExportService {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmLikeStorage filmLikeStorage;
+    private final UserFriendStorage userFriendStorage;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final int chunkSize;
+
+    public ExportService(FilmStorage filmStorage,
+                         UserStorage userStorage,
+                         FilmLikeStorage filmLikeStorage,
+                         UserFriendStorage userFriendStorage,
+                         ObjectMapper objectMapper,
+                         @Value("${filmorate.export.chunk-size:1000}") int chunkSize) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.filmLikeStorage = filmLikeStorage;
+        this.userFriendStorage = userFriendStorage;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.chunkSize = chunkSize;
+    }
+
+    public void exportFilms(OutputStream out) throws IOException {
+        export(out, "фильмов", (Film last) -> filmStorage.findPage(last == null ? 0 : last.getId(), chunkSize));
+    }
+
+    public void exportUsers(OutputStream out) throws IOException {
+        export(out, "пользователей", (User last) -> userStorage.findPage(last == null ? 0 : last.getId(), chunkSize));
+    }
+
+    public void exportLikes(OutputStream out) throws IOException {
+        export(out, "лайков", (FilmLike last) -> filmLikeStorage.findPage(last, chunkSize));
+    }
+
+    public void exportFriendships(OutputStream out) throws IOException {
+        export(out, "пар дружбы", (Friendship last) -> userFriendStorage.findPage(last, chunkSize));
+    }
+
+    // nextPage получает последнюю выгруженную запись (null для первой страницы). Поток ответа закрывает
+    // вызывающий; при ошибке генератор не закрывается и недописанная запись в ответ не сбрасывается.
+    private <T> void export(OutputStream out, String what, Function<T, List<T>> nextPage) throws IOException {
+        long exported = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        List<T> page = nextPage.apply(null);
+        while (!page.isEmpty()) {
+            for (T record : page) {
+                writer.writeValue(generator, record);
+                generator.writeRaw('\n');
+            }
+            exported += page.size();
+            generator.flush();
+            page = page.size() < chunkSize ? List.of() : nextPage.apply(page.get(page.size() - 1));
+        }
+        generator.close();
+        log.info("Выгружено {}: {}", what, exported);
+    }
+}
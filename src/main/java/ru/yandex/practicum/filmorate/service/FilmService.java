@@ -2,13 +2,21 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.index.EntityIdIndex;
+import ru.yandex.practicum.filmorate.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.index.LikeMatrix;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.DataVersions;
 import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -17,47 +25,115 @@ public class FilmService {
     private final FilmStorage filmStorage;
     private final FilmLikeStorage filmLikeStorage; // Добавляем FilmLikeStorage
     private final UserService userService;
+    private final FilmPopularityIndex filmPopularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final EntityIdIndex entityIdIndex;
+    private final LikeMatrix likeMatrix;
+    private final QueryFanOut queryFanOut;
+    private final DataVersions dataVersions;
+    private final TransactionTemplate transactionTemplate;
 
     public Film findById(Long id) {
         return filmStorage.findById(id)
                 .orElseThrow(() -> new NotFoundException("Фильм с id = " + id + " не найден."));
     }
 
-    public Collection<Film> findAll() {
-        return filmStorage.findAll();
+    public List<Film> findPage(long afterId, int limit) {
+        return filmStorage.findPage(afterId, limit);
     }
 
+    // Версию фильмов увеличивает только хранилище. Изменение выполняется в транзакции, поэтому версия
+    // меняется после её фиксации - когда индексы уже обновлены и новый ETag не выдаётся со старыми данными.
     public Film create(Film film) {
-        return filmStorage.create(film);
+        return transactionTemplate.execute(status -> {
+            Film createdFilm = filmStorage.create(film);
+            entityIdIndex.addFilm(createdFilm.getId());
+            filmPopularityIndex.addFilm(createdFilm);
+            filmSearchIndex.index(createdFilm);
+            return createdFilm;
+        });
+    }
+
+    public List<Film> createAll(List<Film> films) {
+        return transactionTemplate.execute(status -> {
+            List<Film> createdFilms = filmStorage.createAll(films);
+            for (Film film : createdFilms) {
+                entityIdIndex.addFilm(film.getId());
+                filmPopularityIndex.addFilm(film);
+                filmSearchIndex.index(film);
+            }
+            return createdFilms;
+        });
     }
 
     public Film update(Film film) {
         checkFilm(film.getId());
-        return filmStorage.update(film);
+        return transactionTemplate.execute(status -> {
+            Film updatedFilm = filmStorage.update(film);
+            filmPopularityIndex.addFilm(updatedFilm);
+            filmSearchIndex.index(updatedFilm);
+            return updatedFilm;
+        });
     }
 
     public void addLike(Long filmId, Long userId) {
-        User user = userService.findById(userId);
-        Film film = findById(filmId);
-        if (!filmLikeStorage.likeExists(film, user)) {
-            filmLikeStorage.addLike(film, user);
+        userService.checkUser(userId);
+        checkFilm(filmId);
+        // Хранилище само решает, изменился ли лайк: повторный одновременный запрос индексы не меняет.
+        if (filmLikeStorage.addLike(filmId, userId)) {
+            filmPopularityIndex.incrementLikes(filmId);
+            likeMatrix.addLike(filmId, userId);
+            dataVersions.likesChanged();
+        }
+    }
+
+    // Уже поставленные лайки пропускаются, поэтому повторная загрузка того же файла ничего не меняет.
+    // Индексы обновляются только по лайкам, которые вставило хранилище: лайк, одновременно поставленный
+    // отдельным запросом, учитывается один раз.
+    public void addLikes(List<FilmLike> likes) {
+        List<FilmLike> newLikes = likes.stream()
+                .filter(like -> !likeMatrix.hasLike(like.getFilmId(), like.getUserId()))
+                .distinct()
+                .toList();
+        List<FilmLike> added = filmLikeStorage.addLikes(newLikes);
+        for (FilmLike like : added) {
+            filmPopularityIndex.incrementLikes(like.getFilmId());
+            likeMatrix.addLike(like.getFilmId(), like.getUserId());
+        }
+        if (!added.isEmpty()) {
+            dataVersions.likesChanged();
         }
     }
 
     public void removeLike(Long filmId, Long userId) {
-        User user = userService.findById(userId);
-        Film film = findById(filmId);
-        if (filmLikeStorage.likeExists(film, user)) {
-            filmLikeStorage.removeLike(film, user);
+        userService.checkUser(userId);
+        checkFilm(filmId);
+        if (filmLikeStorage.removeLike(filmId, userId)) {
+            filmPopularityIndex.decrementLikes(filmId);
+            likeMatrix.removeLike(filmId, userId);
+            dataVersions.likesChanged();
         }
     }
 
-    public Collection<Film> getPopularFilms(int count) {
-        return filmStorage.getPopularFilms(count);
+    public Collection<Film> getPopularFilms(int count, Long genreId, Integer year) {
+        return queryFanOut.findByIds(filmPopularityIndex.getTopFilmIds(count, genreId, year), filmStorage::findByIds);
+    }
+
+    public List<Film> search(String query, int limit) {
+        return queryFanOut.findByIds(filmSearchIndex.search(query, limit), filmStorage::findByIds);
+    }
+
+    public Collection<Film> getRecommendations(Long userId, int limit) {
+        userService.checkUser(userId);
+        return findFilms(likeMatrix.getRecommendedFilmIds(userId, limit));
+    }
+
+    private List<Film> findFilms(long[] filmIds) {
+        return queryFanOut.findByIds(Arrays.stream(filmIds).boxed().toList(), filmStorage::findByIds);
     }
 
-    private void checkFilm(Long filmId) {
-        if (filmStorage.findById(filmId).isEmpty()) {
+    public void checkFilm(Long filmId) {
+        if (filmId == null || !entityIdIndex.filmExists(filmId)) {
             throw new NotFoundException("Фильм с id = " + filmId + " не найден.");
         }
     }
@@ -5,7 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.Collection;
 
@@ -14,14 +14,14 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class GenreService {
 
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceDataCache;
 
     public Genre findById(Long id) {
-        return genreStorage.findById(id)
+        return referenceDataCache.findGenre(id)
                 .orElseThrow(() -> new NotFoundException("Жанр с id = " + id + " не найден."));
     }
 
     public Collection<Genre> findAll() {
-        return genreStorage.findAll();
+        return referenceDataCache.findAllGenres();
     }
 }
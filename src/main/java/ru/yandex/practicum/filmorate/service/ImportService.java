@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Загрузка NDJSON: по одной записи на строку. Тело читается построчно, записи проверяются по отдельности
+// и пишутся пачками по chunkSize, каждая пачка - в своей транзакции. Если пачка не записалась,
+// её записи повторяются по одной, чтобы найти строки с ошибками.
+@Service
+@Slf4j
+public class ImportService {
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final MpaService mpaService;
+    private final GenreService genreService;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ImportService(ObjectMapper objectMapper,
+                         Validator validator,
+                         TransactionTemplate transactionTemplate,
+                         FilmService filmService,
+                         UserService userService,
+                         MpaService mpaService,
+                         GenreService genreService,
+                         @Value("${filmorate.import.chunk-size:1000}") int chunkSize,
+                         @Value("${filmorate.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.filmService = filmService;
+        this.userService = userService;
+        this.mpaService = mpaService;
+        this.genreService = genreService;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportReport importFilms(InputStream body) {
+        return importLines(body, Film.class, film -> {
+            mpaService.findById(film.getMpa() == null ? null : film.getMpa().getId());
+            if (film.getGenres() != null) {
+                for (Genre genre : film.getGenres()) {
+                    genreService.findById(genre.getId());
+                }
+            }
+        }, filmService::createAll);
+    }
+
+    public ImportReport importUsers(InputStream body) {
+        return importLines(body, User.class, user -> {
+        }, userService::createAll);
+    }
+
+    public ImportReport importLikes(InputStream body) {
+        return importLines(body, FilmLike.class, like -> {
+            filmService.checkFilm(like.getFilmId());
+            userService.checkUser(like.getUserId());
+        }, filmService::addLikes);
+    }
+
+    public ImportReport importFriendships(InputStream body) {
+        return importLines(body, Friendship.class, friendship -> {
+            if (friendship.getUserId() == friendship.getFriendId()) {
+                throw new ConditionsNotMetException("Пользователь не может добавить в друзья самого себя.");
+            }
+            userService.checkUser(friendship.getUserId());
+            userService.checkUser(friendship.getFriendId());
+        }, userService::addFriends);
+    }
+
+    private <T> ImportReport importLines(InputStream body, Class<T> type, Consumer<T> check,
+                                         Consumer<List<T>> writer) {
+        ImportReport report = new ImportReport();
+        ObjectReader reader = objectMapper.readerFor(type);
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.setProcessed(report.getProcessed() + 1);
+                try {
+                    T record = reader.readValue(line);
+                    if (record == null) {
+                        throw new ConditionsNotMetException("Пустая запись.");
+                    }
+                    validate(record);
+                    check.accept(record);
+                    chunk.add(record);
+                    chunkLines.add(lineNumber);
+                } catch (JsonProcessingException e) {
+                    addError(report, lineNumber, "Некорректный JSON: " + e.getOriginalMessage());
+                } catch (ConditionsNotMetException | NotFoundException e) {
+                    addError(report, lineNumber, e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, chunkLines, writer, report);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        writeChunk(chunk, chunkLines, writer, report);
+        log.info("Загрузка {}: обработано строк {}, загружено {}, с ошибками {}", type.getSimpleName(),
+                report.getProcessed(), report.getImported(), report.getFailed());
+        return report;
+    }
+
+    private <T> void writeChunk(List<T> chunk, List<Long> chunkLines, Consumer<List<T>> writer,
+                                ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.accept(chunk));
+            report.setImported(report.getImported() + chunk.size());
+        } catch (RuntimeException e) {
+            log.debug("Пачка из {} записей не загружена, повтор по одной записи", chunk.size(), e);
+            for (int i = 0; i < chunk.size(); i++) {
+                List<T> single = List.of(chunk.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> writer.accept(single));
+                    report.setImported(report.getImported() + 1);
+                } catch (DataIntegrityViolationException e2) {
+                    addError(report, chunkLines.get(i),
+                            "Запись противоречит данным в базе: дубликат или ссылка на несуществующую запись.");
+                } catch (ConditionsNotMetException | NotFoundException e2) {
+                    addError(report, chunkLines.get(i), e2.getMessage());
+                } catch (DataAccessException e2) {
+                    log.warn("Запись из строки {} не загружена из-за ошибки базы данных", chunkLines.get(i), e2);
+                    addError(report, chunkLines.get(i), "Запись не сохранена: ошибка базы данных.");
+                } catch (RuntimeException e2) {
+                    log.debug("Запись из строки {} не загружена", chunkLines.get(i), e2);
+                    addError(report, chunkLines.get(i), "Запись не может быть сохранена.");
+                }
+            }
+        }
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private <T> void validate(T record) {
+        Set<ConstraintViolation<T>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            throw new ConditionsNotMetException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(" ")));
+        }
+    }
+
+    private void addError(ImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new ImportReport.LineError(line, message));
+        }
+    }
+}
@@ -5,7 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.Collection;
 
@@ -14,14 +14,14 @@ import java.util.Collection;
 @RequiredArgsConstructor
 public class MpaService {
 
-    private final MpaStorage mpaStorage;
+    private final ReferenceDataCache referenceDataCache;
 
     public Mpa findById(Long id) {
-        return mpaStorage.findById(id)
+        return referenceDataCache.findMpa(id)
                 .orElseThrow(() -> new NotFoundException("MPA рейтинг с id = " + id + " не найден."));
     }
 
     public Collection<Mpa> findAll() {
-        return mpaStorage.findAll();
+        return referenceDataCache.findAllMpas();
     }
 }
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.metrics.QueryCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Параллельное чтение по длинному списку id: список делится на части, каждая читается отдельным запросом
+// в своём виртуальном потоке. Все подзапросы завершаются до возврата из метода, при ошибке одного
+// остальные отменяются. В режиме платформенных потоков, а также при одном ядре процессора, где подзапросы
+// только конкурируют друг с другом, список читается одним запросом в текущем потоке.
+@Component
+public class QueryFanOut {
+
+    private final boolean enabled;
+    private final int minChunkSize;
+    private final int maxParallelism;
+
+    public QueryFanOut(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                       @Value("${filmorate.fan-out.min-chunk-size:100}") int minChunkSize,
+                       @Value("${filmorate.fan-out.max-parallelism:0}") int maxParallelism) {
+        this.maxParallelism = maxParallelism > 0 ? maxParallelism : Runtime.getRuntime().availableProcessors();
+        this.enabled = virtualThreads && this.maxParallelism > 1;
+        this.minChunkSize = minChunkSize;
+    }
+
+    public <T> List<T> findByIds(List<Long> ids, Function<List<Long>, List<T>> query) {
+        if (!enabled || ids.size() < minChunkSize * 2) {
+            return query.apply(ids);
+        }
+        int chunkSize = Math.max(minChunkSize, (ids.size() + maxParallelism - 1) / maxParallelism);
+        List<Future<List<T>>> chunks = new ArrayList<>();
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                chunks.add(scope.submit(QueryCounter.propagate(() -> query.apply(chunk))));
+            }
+            List<T> result = new ArrayList<>(ids.size());
+            for (Future<List<T>> chunk : chunks) {
+                result.addAll(join(chunk, chunks));
+            }
+            return result;
+        }
+    }
+
+    private static <T> List<T> join(Future<List<T>> chunk, List<Future<List<T>>> chunks) {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            chunks.forEach(other -> other.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            chunks.forEach(other -> other.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Чтение данных прервано.", 1);
+        }
+    }
+}
@@ -4,13 +4,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.index.EntityIdIndex;
+import ru.yandex.practicum.filmorate.index.FriendGraph;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserFriendStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 @Service
 @Slf4j
@@ -19,6 +22,9 @@ public class UserService {
 
     private final UserStorage userStorage;
     private final UserFriendStorage userFriendStorage;
+    private final EntityIdIndex entityIdIndex;
+    private final FriendGraph friendGraph;
+    private final QueryFanOut queryFanOut;
 
     public User findById(Long id) {
         return userStorage.findById(id)
@@ -31,7 +37,20 @@ public class UserService {
 
     public User create(User user) {
         setNameByLoginIfNameIsNull(user);
-        return userStorage.create(user);
+        User createdUser = userStorage.create(user);
+        entityIdIndex.addUser(createdUser.getId());
+        return createdUser;
+    }
+
+    public List<User> createAll(List<User> users) {
+        for (User user : users) {
+            if (user.getName() == null || user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+        }
+        List<User> createdUsers = userStorage.createAll(users);
+        createdUsers.forEach(user -> entityIdIndex.addUser(user.getId()));
+        return createdUsers;
     }
 
     public User update(User user) {
@@ -41,32 +60,51 @@ public class UserService {
     }
 
     public void addFriend(Long userId, Long friendId) {
-        User user = findById(userId);
-        User friend = findById(friendId);
+        checkUser(userId);
+        checkUser(friendId);
+
+        // Хранилище само решает, появилась ли дружба: повторный одновременный запрос не даёт ошибки ключа.
+        if (userFriendStorage.addFriend(userId, friendId)) {
+            friendGraph.addFriend(userId, friendId);
+        }
+    }
 
-        userFriendStorage.addFriend(user, friend);
+    // Уже существующие дружбы пропускаются, поэтому повторная загрузка того же файла ничего не меняет.
+    public void addFriends(List<Friendship> friendships) {
+        List<Friendship> newFriendships = friendships.stream()
+                .filter(friendship -> !friendGraph.hasFriend(friendship.getUserId(), friendship.getFriendId()))
+                .distinct()
+                .toList();
+        userFriendStorage.addFriends(newFriendships);
+        newFriendships.forEach(friendship -> friendGraph.addFriend(friendship.getUserId(), friendship.getFriendId()));
     }
 
     public void removeFriend(Long userId, Long friendId) {
-        User user = findById(userId);
-        User friend = findById(friendId);
+        checkUser(userId);
+        checkUser(friendId);
 
-        userFriendStorage.removeFriend(user, friend);
+        userFriendStorage.removeFriend(userId, friendId);
+        friendGraph.removeFriend(userId, friendId);
     }
 
     public Collection<User> getFriends(Long userId) {
-        User user = findById(userId);
-        return userFriendStorage.getFriends(user);
+        checkUser(userId);
+        return findUsers(friendGraph.getFriendIds(userId));
     }
 
-    public Collection<User> getCommonFriends(Long userId, Long otherUserId) {
-        Collection<User> userFriends = getFriends(userId);
-        Collection<User> otherUserFriends = getFriends(otherUserId);
+    public Collection<User> getFriendSuggestions(Long userId, int limit) {
+        checkUser(userId);
+        return findUsers(friendGraph.getFriendSuggestionIds(userId, limit));
+    }
 
-        Set<User> commonFriends = new HashSet<>(userFriends);
-        commonFriends.retainAll(otherUserFriends);
+    public Collection<User> getCommonFriends(Long userId, Long otherUserId) {
+        checkUser(userId);
+        checkUser(otherUserId);
+        return findUsers(friendGraph.getCommonFriendIds(userId, otherUserId));
+    }
 
-        return commonFriends;
+    private List<User> findUsers(long[] userIds) {
+        return queryFanOut.findByIds(Arrays.stream(userIds).boxed().toList(), userStorage::findByIds);
     }
 
     private void setNameByLoginIfNameIsNull(User user) {
@@ -77,7 +115,7 @@ public class UserService {
     }
 
     public void checkUser(Long userId) {
-        if (userStorage.findById(userId).isEmpty()) {
+        if (userId == null || !entityIdIndex.userExists(userId)) {
             throw new NotFoundException("Пользователь с id=" + userId + " не найден.");
         }
     }
@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Кэш полностью собранных фильмов поверх FilmDbStorage. Вытеснение по размеру (W-TinyLFU) и по TTL.
+// Закэшированные фильмы наружу не отдаются: чтение возвращает копии, чтобы изменения у вызывающего
+// кода не попадали в кэш и не были видны другим запросам.
+@Repository
+@Profile("!in-memory")
+@Primary
+@Slf4j
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+    private final Cache<Long, Film> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachingFilmStorage(@Qualifier("filmDbStorage") FilmStorage delegate,
+                              @Value("${filmorate.film-cache.max-size:10000}") long maxSize,
+                              @Value("${filmorate.film-cache.ttl:10m}") Duration ttl) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return Optional.ofNullable(cache.get(id, key -> delegate.findById(key).orElse(null))).map(FilmCopies::copy);
+    }
+
+    @Override
+    public Collection<Film> findAll() {
+        return delegate.findAll();
+    }
+
+    // Недостающие фильмы читаются одним запросом, но кладутся в кэш, только если с начала чтения
+    // ничего не сбрасывалось: иначе фильм, обновлённый во время чтения, остался бы в кэше до TTL.
+    // Проверка и запись выполняются в compute, поэтому атомарны относительно invalidate того же ключа.
+    @Override
+    public List<Film> findByIds(List<Long> ids) {
+        Map<Long, Film> films = new HashMap<>();
+        cache.getAllPresent(ids).forEach((id, film) -> films.put(id, FilmCopies.copy(film)));
+        List<Long> missingIds = ids.stream()
+                .filter(id -> !films.containsKey(id))
+                .distinct()
+                .toList();
+        if (!missingIds.isEmpty()) {
+            long version = invalidations.get();
+            for (Film film : delegate.findByIds(missingIds)) {
+                films.put(film.getId(), film);
+                Film cachedCopy = FilmCopies.copy(film);
+                cache.asMap().compute(film.getId(), (id, cached) -> invalidations.get() == version ? cachedCopy : cached);
+            }
+        }
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public void streamAll(long afterId, Consumer<Film> consumer) {
+        delegate.streamAll(afterId, consumer);
+    }
+
+    @Override
+    public Film create(Film film) {
+        return delegate.create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return delegate.createAll(films);
+    }
+
+    // Внутри транзакции фильм сбрасывается ещё раз после её фиксации: до фиксации параллельное чтение
+    // может снова положить в кэш старую строку. Повторный сброс выполняется раньше увеличения версии фильмов.
+    @Override
+    public Film update(Film film) {
+        try {
+            return delegate.update(film);
+        } finally {
+            invalidate(film.getId());
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public int getOrder() {
+                        return Ordered.HIGHEST_PRECEDENCE;
+                    }
+
+                    @Override
+                    public void afterCommit() {
+                        invalidate(film.getId());
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public Collection<Film> getPopularFilms(int count) {
+        return delegate.getPopularFilms(count);
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return cache.getIfPresent(id) != null || delegate.existsById(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer consumer) {
+        delegate.forEachId(consumer);
+    }
+
+    private void invalidate(long id) {
+        cache.asMap().compute(id, (key, cached) -> {
+            invalidations.incrementAndGet();
+            return null;
+        });
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @EventListener(ReferenceDataCache.RefreshedEvent.class)
+    public void onReferenceDataRefreshed() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+        log.info("Кэш фильмов сброшен после обновления справочников.");
+    }
+}
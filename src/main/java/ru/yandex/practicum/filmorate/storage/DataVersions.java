@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Счётчики версий данных для ETag. Увеличиваются после того, как изменение стало видно читателям:
+// внутри транзакции - после её фиксации, когда кэш фильмов и индексы уже обновлены. Версию фильмов
+// увеличивает только хранилище, по одному разу на изменение. Читатель берёт версию до чтения данных,
+// поэтому ответ никогда не оказывается старше своей версии. Эпоха запуска отличает версии после перезапуска.
+@Component
+public class DataVersions {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong films = new AtomicLong();
+    private final AtomicLong likes = new AtomicLong();
+    private final AtomicLong referenceData = new AtomicLong();
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getFilms() {
+        return films.get();
+    }
+
+    public long getLikes() {
+        return likes.get();
+    }
+
+    public long getReferenceData() {
+        return referenceData.get();
+    }
+
+    public void filmsChanged() {
+        increment(films);
+    }
+
+    public void likesChanged() {
+        increment(likes);
+    }
+
+    public void referenceDataChanged() {
+        increment(referenceData);
+    }
+
+    private static void increment(AtomicLong version) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+}
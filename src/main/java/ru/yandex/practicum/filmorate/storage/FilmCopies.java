@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Полная копия фильма вместе с рейтингом и жанрами для хранилищ, которые держат фильмы в памяти:
+// вызывающий код может менять полученный фильм, не затрагивая общий экземпляр.
+final class FilmCopies {
+
+    private FilmCopies() {
+    }
+
+    static Film copy(Film film) {
+        Mpa mpa = film.getMpa() == null ? null
+                : new Mpa(film.getMpa().getId(), film.getMpa().getName(), film.getMpa().getDescription());
+        Set<Genre> genres = new LinkedHashSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().forEach(genre -> genres.add(new Genre(genre.getId(), genre.getName())));
+        }
+        return new Film(film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration(), mpa, genres);
+    }
+}
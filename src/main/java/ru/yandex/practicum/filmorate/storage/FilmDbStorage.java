@@ -1,9 +1,10 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.annotation.Primary;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
@@ -12,8 +13,6 @@ import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.mapper.GenreMapper;
-import ru.yandex.practicum.filmorate.storage.mapper.MpaMapper;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
@@ -22,137 +21,133 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 @Repository
+@Profile("!in-memory")
 @RequiredArgsConstructor
-@Primary
 public class FilmDbStorage implements FilmStorage {
 
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-    private final GenreMapper genreMapper;
-    private final MpaMapper mpaMapper;
+    private final ReferenceDataCache referenceDataCache;
+    private final DataVersions dataVersions;
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    // Фильм вместе с рейтингом MPA и жанрами читается одним запросом: по строке на каждый жанр фильма.
+    private static final String FILM_COLUMNS = "SELECT f.id, f.name, f.description, f.release_date, f.duration, " +
+            "m.id AS mpa_id, m.name AS mpa_name, m.description AS mpa_description, " +
+            "g.id AS genre_id, g.name AS genre_name ";
+
+    private static final String MPA_AND_GENRE_JOINS = "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
+            "LEFT JOIN film_genres fg ON f.id = fg.film_id " +
+            "LEFT JOIN genres g ON fg.genre_id = g.id ";
 
     @Override
     public Optional<Film> findById(Long id) {
-        String sql = "SELECT * FROM films WHERE id = ?";
-        try {
-            Film film = jdbcTemplate.queryForObject(sql, this::mapRowToFilm, id);
-            assert film != null;
-            film.setGenres(getGenresByFilmId(id));
-            film.setMpa(getMpaByFilmId(id));
-            return Optional.of(film);
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
-        }
+        String sql = FILM_COLUMNS +
+                "FROM films f " +
+                MPA_AND_GENRE_JOINS +
+                "WHERE f.id = ?";
+
+        List<Film> films = new ArrayList<>(1);
+        FilmRowCallbackHandler handler = new FilmRowCallbackHandler(films::add);
+        jdbcTemplate.query(sql, handler, id);
+        handler.flush();
+        return films.stream().findFirst();
     }
 
     @Override
     public Collection<Film> findAll() {
-        String sql = "SELECT * FROM films";
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm);
-
-        if (films.isEmpty()) {
-            return films;
-        }
-
-        String genreSql = "SELECT fg.film_id, g.id AS genre_id, g.name AS genre_name " +
-                "FROM film_genres fg " +
-                "JOIN genres g ON fg.genre_id = g.id " +
-                "WHERE fg.film_id IN (%s)";
-
-        String filmIds = films.stream()
-                .map(film -> String.valueOf(film.getId()))
-                .collect(Collectors.joining(","));
-
-        Map<Long, Set<Genre>> filmGenres = getGenresForFilms(genreSql, filmIds);
-
-        films.forEach(film -> film.setGenres(filmGenres.getOrDefault(film.getId(), new HashSet<>())));
-
-        Map<Long, Mpa> filmMpa = getMpaForFilms(films);
-
-        films.forEach(film -> film.setMpa(filmMpa.get(film.getId())));
+        String sql = FILM_COLUMNS +
+                "FROM films f " +
+                MPA_AND_GENRE_JOINS +
+                "ORDER BY f.id";
 
+        List<Film> films = new ArrayList<>();
+        FilmRowCallbackHandler handler = new FilmRowCallbackHandler(films::add);
+        jdbcTemplate.query(sql, handler);
+        handler.flush();
         return films;
     }
 
-    private Map<Long, Set<Genre>> getGenresForFilms(String genreSql, String filmIds) {
-        return jdbcTemplate.query(
-                String.format(genreSql, filmIds),
-                rs -> {
-                    Map<Long, Set<Genre>> genresMap = new HashMap<>();
-                    while (rs.next()) {
-                        long filmId = rs.getLong("film_id");
-                        Genre genre = genreMapper.mapRow(rs, rs.getRow());
-                        genresMap.computeIfAbsent(filmId, k -> new HashSet<>()).add(genre);
-                    }
-                    return genresMap;
-                }
-        );
-    }
-
-    private Map<Long, Mpa> getMpaForFilms(List<Film> films) {
-        if (films.isEmpty()) {
-            return Collections.emptyMap();
+    @Override
+    public List<Film> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
 
-        String sql = "SELECT f.id AS film_id, m.id AS mpa_id, m.name AS mpa_name, m.description AS mpa_description " +
+        String sql = FILM_COLUMNS +
                 "FROM films f " +
-                "JOIN mpa_ratings m ON f.mpa_rating_id = m.id " +
-                "WHERE f.id IN (:filmIds)";
-
-        List<Long> filmIds = films.stream()
-                .map(Film::getId)
-                .collect(Collectors.toList());
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("filmIds", filmIds);
-
-        return namedParameterJdbcTemplate.query(sql, params, rs -> {
-            Map<Long, Mpa> mpaMap = new HashMap<>();
-            while (rs.next()) {
-                long filmId = rs.getLong("film_id");
-                Mpa mpa = mpaMapper.mapRow(rs, rs.getRow());
-                mpaMap.put(filmId, mpa);
-            }
-            return mpaMap;
-        });
-    }
-
-    private boolean mpaExists(Long mpaId) {
-        String sql = "SELECT COUNT(*) FROM mpa_ratings WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, mpaId);
-        return count <= 0;
+                MPA_AND_GENRE_JOINS +
+                "WHERE f.id IN (:filmIds) " +
+                "ORDER BY f.id";
+
+        Map<Long, Film> filmsById = new HashMap<>();
+        FilmRowCallbackHandler handler = new FilmRowCallbackHandler(film -> filmsById.put(film.getId(), film));
+        namedParameterJdbcTemplate.query(sql, Map.of("filmIds", ids), handler);
+        handler.flush();
+
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
-    private List<Long> getExistingGenreIds(List<Long> genreIds) {
-        String sql = "SELECT id FROM genres WHERE id IN (:genreIds)";
-
-        Map<String, Object> params = new HashMap<>();
-        params.put("genreIds", genreIds);
-
-        return namedParameterJdbcTemplate.queryForList(sql, params, Long.class);
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        String sql = FILM_COLUMNS +
+                "FROM (SELECT * FROM films WHERE id > ? ORDER BY id LIMIT ?) f " +
+                MPA_AND_GENRE_JOINS +
+                "ORDER BY f.id";
+
+        List<Film> films = new ArrayList<>(limit);
+        FilmRowCallbackHandler handler = new FilmRowCallbackHandler(films::add);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setLong(1, afterId);
+            ps.setInt(2, limit);
+            return ps;
+        }, handler);
+        handler.flush();
+        return films;
     }
 
-    private boolean filmExists(Long filmId) {
-        String sql = "SELECT COUNT(*) FROM films WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, filmId);
-        return count > 0;
+    @Override
+    public void streamAll(long afterId, Consumer<Film> consumer) {
+        String sql = FILM_COLUMNS +
+                "FROM films f " +
+                MPA_AND_GENRE_JOINS +
+                "WHERE f.id > ? " +
+                "ORDER BY f.id";
+
+        FilmRowCallbackHandler handler = new FilmRowCallbackHandler(consumer);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setLong(1, afterId);
+            return ps;
+        }, handler);
+        handler.flush();
     }
 
     @Override
     public Film create(Film film) {
 
-        checkCorrectMpaAndGenres(film);
+        referenceDataCache.resolveMpaAndGenres(film);
 
         String sql = "INSERT INTO films (name, description, release_date, duration, MPA_RATING_ID) VALUES (?, ?, ?, ?, ?)";
         KeyHolder keyHolder = new GeneratedKeyHolder();
@@ -169,58 +164,104 @@ public class FilmDbStorage implements FilmStorage {
         long filmId = Objects.requireNonNull(keyHolder.getKey()).longValue();
         film.setId(filmId);
         updateGenres(filmId, film.getGenres());
+        dataVersions.filmsChanged();
         return film;
     }
 
+    // Вставка пачкой одним batch-запросом; сгенерированные id возвращаются в порядке вставки.
     @Override
-    public Collection<Film> getPopularFilms(int count) {
-        String sql = "SELECT f.id, f.name, f.description, f.release_date, f.duration, f.mpa_rating_id, " +
-                "COUNT(fl.user_id) AS like_count " +
-                "FROM films f " +
-                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
-                "GROUP BY f.id, f.name, f.description, f.release_date, f.duration, f.mpa_rating_id " +
-                "ORDER BY like_count DESC " +
-                "LIMIT ?";
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        films.forEach(referenceDataCache::resolveMpaAndGenres);
 
-        return jdbcTemplate.query(sql, this::mapRowToFilm, count);
+        String sql = "INSERT INTO films (name, description, release_date, duration, MPA_RATING_ID) VALUES (?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Film film = films.get(i);
+                        ps.setString(1, film.getName());
+                        ps.setString(2, film.getDescription());
+                        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        ps.setInt(4, film.getDuration());
+                        ps.setLong(5, film.getMpa().getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Object[]> genreArgs = new ArrayList<>();
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            Film film = films.get(i);
+            film.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            if (film.getGenres() != null) {
+                for (Genre genre : film.getGenres()) {
+                    genreArgs.add(new Object[]{film.getId(), genre.getId()});
+                }
+            }
+        }
+        if (!genreArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreArgs);
+        }
+        dataVersions.filmsChanged();
+        return films;
     }
 
     @Override
-    public Film update(Film film) {
-        if (!filmExists(film.getId())) {
-            throw new ConditionsNotMetException("Фильм с id = " + film.getId() + " не найден.");
-        }
+    public Collection<Film> getPopularFilms(int count) {
+        // Первые count фильмов читаются из индекса idx_films_like_count, film_likes не группируется.
+        String sql = FILM_COLUMNS +
+                "FROM (SELECT id, like_count FROM films ORDER BY like_count DESC, id LIMIT ?) top " +
+                "JOIN films f ON f.id = top.id " +
+                MPA_AND_GENRE_JOINS +
+                "ORDER BY top.like_count DESC, f.id";
+
+        List<Film> films = new ArrayList<>(count);
+        FilmRowCallbackHandler handler = new FilmRowCallbackHandler(films::add);
+        jdbcTemplate.query(sql, handler, count);
+        handler.flush();
+        return films;
+    }
 
-        checkCorrectMpaAndGenres(film);
+    @Override
+    public Film update(Film film) {
+        referenceDataCache.resolveMpaAndGenres(film);
 
         String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, MPA_RATING_ID = ? WHERE id = ?";
-        jdbcTemplate.update(sql, film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()),
+        int updated = jdbcTemplate.update(sql, film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()),
                 film.getDuration(), film.getMpa().getId(), film.getId());
+        if (updated == 0) {
+            throw new ConditionsNotMetException("Фильм с id = " + film.getId() + " не найден.");
+        }
 
         updateGenres(film.getId(), film.getGenres());
-
-        return findById(film.getId()).orElse(null);
-    }
-
-    private void checkCorrectMpaAndGenres(Film film) {
-        if (film.getMpa() == null || mpaExists(film.getMpa().getId())) {
-            assert film.getMpa() != null;
-            throw new ConditionsNotMetException("Рейтинг MPA с id = " + film.getMpa().getId() + " не найден.");
+        if (film.getGenres() == null) {
+            film.setGenres(new LinkedHashSet<>());
         }
+        dataVersions.filmsChanged();
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            List<Long> genreIds = film.getGenres().stream()
-                    .map(Genre::getId)
-                    .collect(Collectors.toList());
+        return film;
+    }
 
-            List<Long> existingGenreIds = getExistingGenreIds(genreIds);
+    @Override
+    public boolean existsById(long id) {
+        String sql = "SELECT 1 FROM films WHERE id = ?";
+        return !jdbcTemplate.queryForList(sql, Integer.class, id).isEmpty();
+    }
 
-            for (Genre genre : film.getGenres()) {
-                if (!existingGenreIds.contains(genre.getId())) {
-                    throw new ConditionsNotMetException("Жанр с id = " + genre.getId() + " не найден.");
-                }
-            }
-        }
+    @Override
+    public void forEachId(LongConsumer consumer) {
+        String sql = "SELECT id FROM films";
+        jdbcTemplate.query(sql, rs -> {
+            consumer.accept(rs.getLong("id"));
+        });
     }
 
     private void updateGenres(long filmId, Set<Genre> genres) {
@@ -239,25 +280,47 @@ public class FilmDbStorage implements FilmStorage {
         }
     }
 
-    private Set<Genre> getGenresByFilmId(Long filmId) {
-        String sql = "SELECT g.id, g.name FROM genres g JOIN film_genres fg ON g.id = fg.genre_id WHERE fg.film_id = ?";
-        return new HashSet<>(jdbcTemplate.query(sql, genreMapper, filmId));
-    }
+    // Строки одного фильма идут подряд, поэтому фильм отдаётся потребителю, как только начинается следующий.
+    // Жанры сортируются по id при сборке фильма, чтобы не сортировать весь результат запроса.
+    private static final class FilmRowCallbackHandler implements RowCallbackHandler {
 
-    private Mpa getMpaByFilmId(Long filmId) {
-        String sql = "SELECT m.id, m.name, m.description FROM mpa_ratings m JOIN films f ON m.id = f.MPA_RATING_ID WHERE f.id = ?";
-        return jdbcTemplate.queryForObject(sql, mpaMapper, filmId);
-    }
+        private final Consumer<Film> consumer;
+        private final List<Genre> genres = new ArrayList<>();
+        private Film current;
+
+        private FilmRowCallbackHandler(Consumer<Film> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long filmId = rs.getLong("id");
+            if (current == null || current.getId() != filmId) {
+                flush();
+                current = new Film(
+                        filmId,
+                        rs.getString("name"),
+                        rs.getString("description"),
+                        rs.getDate("release_date").toLocalDate(),
+                        rs.getInt("duration"),
+                        new Mpa(rs.getLong("mpa_id"), rs.getString("mpa_name"), rs.getString("mpa_description")),
+                        null
+                );
+            }
+            long genreId = rs.getLong("genre_id");
+            if (!rs.wasNull()) {
+                genres.add(new Genre(genreId, rs.getString("genre_name")));
+            }
+        }
 
-    private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
-        return new Film(
-                rs.getLong("id"),
-                rs.getString("name"),
-                rs.getString("description"),
-                rs.getDate("release_date").toLocalDate(),
-                rs.getInt("duration"),
-                null,
-                null
-        );
+        private void flush() {
+            if (current != null) {
+                genres.sort(Comparator.comparing(Genre::getId));
+                current.setGenres(new LinkedHashSet<>(genres));
+                consumer.accept(current);
+                current = null;
+                genres.clear();
+            }
+        }
     }
 }
@@ -1,33 +1,155 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Repository
+@Profile("!in-memory")
 @RequiredArgsConstructor
 public class FilmLikeDbStorage implements FilmLikeStorage {
 
+    private static final String UPDATE_LIKE_COUNT_SQL = "UPDATE films SET like_count = like_count + ? WHERE id = ?";
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO film_likes (film_id, user_id) SELECT ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataVersions dataVersions;
 
     @Override
-    public boolean likeExists(Film film, User user) {
+    public boolean likeExists(long filmId, long userId) {
         String sql = "SELECT COUNT(*) FROM film_likes WHERE film_id = ? AND user_id = ?";
-        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, film.getId(), user.getId());
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, filmId, userId);
         return count > 0;
     }
 
+    // Счётчик films.like_count меняется в той же транзакции, что и film_likes, и только на число
+    // действительно добавленных или удалённых строк.
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+                return false;
+            }
+            jdbcTemplate.update(UPDATE_LIKE_COUNT_SQL, -1, filmId);
+            dataVersions.likesChanged();
+            return true;
+        }));
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (jdbcTemplate.update(INSERT_IF_ABSENT_SQL, filmId, userId, filmId, userId) == 0) {
+                    return false;
+                }
+                jdbcTemplate.update(UPDATE_LIKE_COUNT_SQL, 1, filmId);
+                dataVersions.likesChanged();
+                return true;
+            }));
+        } catch (DuplicateKeyException e) {
+            // Тот же лайк одновременно вставил другой запрос.
+            return false;
+        }
+    }
+
+    @Override
+    public List<FilmLike> addLikes(Collection<FilmLike> likes) {
+        return writeLikes(INSERT_IF_ABSENT_SQL, likes, 1);
+    }
+
     @Override
-    public void removeLike(Film film, User user) {
+    public void removeLikes(Collection<FilmLike> likes) {
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, film.getId(), user.getId());
+        writeLikes(sql, likes, -1);
+    }
+
+    @Override
+    public Map<Long, Long> getLikeCountsByFilm() {
+        String sql = "SELECT id, like_count FROM films";
+        return jdbcTemplate.query(sql, rs -> {
+            Map<Long, Long> likeCounts = new HashMap<>();
+            while (rs.next()) {
+                likeCounts.put(rs.getLong("id"), rs.getLong("like_count"));
+            }
+            return likeCounts;
+        });
     }
 
     @Override
-    public void addLike(Film film, User user) {
-        String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
-        jdbcTemplate.update(sql, film.getId(), user.getId());
+    public List<FilmLike> findPage(FilmLike after, int limit) {
+        String sql = "SELECT film_id, user_id FROM film_likes " +
+                "WHERE film_id > ? OR (film_id = ? AND user_id > ?) " +
+                "ORDER BY film_id, user_id LIMIT ?";
+        long afterFilmId = after == null ? 0 : after.getFilmId();
+        long afterUserId = after == null ? 0 : after.getUserId();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(limit);
+            ps.setLong(1, afterFilmId);
+            ps.setLong(2, afterFilmId);
+            ps.setLong(3, afterUserId);
+            ps.setInt(4, limit);
+            return ps;
+        }, (rs, rowNum) -> new FilmLike(rs.getLong("film_id"), rs.getLong("user_id")));
+    }
+
+    @Override
+    public void forEachLike(LikeConsumer consumer) {
+        String sql = "SELECT film_id, user_id FROM film_likes ORDER BY user_id";
+        jdbcTemplate.query(sql, rs -> {
+            consumer.accept(rs.getLong("film_id"), rs.getLong("user_id"));
+        });
+    }
+
+    // Пачка изменений лайков и одно обновление счётчика на каждый затронутый фильм.
+    // Возвращает лайки, строки которых действительно вставлены или удалены.
+    private List<FilmLike> writeLikes(String sql, Collection<FilmLike> likes, int sign) {
+        if (likes.isEmpty()) {
+            return List.of();
+        }
+        List<FilmLike> batch = List.copyOf(likes);
+        return transactionTemplate.execute(status -> {
+            int[][] updated = jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, like) -> {
+                ps.setLong(1, like.getFilmId());
+                ps.setLong(2, like.getUserId());
+                if (sign > 0) {
+                    ps.setLong(3, like.getFilmId());
+                    ps.setLong(4, like.getUserId());
+                }
+            });
+            List<FilmLike> changed = new ArrayList<>();
+            Map<Long, Long> deltas = new HashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (updated[0][i] > 0) {
+                    changed.add(batch.get(i));
+                    deltas.merge(batch.get(i).getFilmId(), (long) sign, Long::sum);
+                }
+            }
+            if (!deltas.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_LIKE_COUNT_SQL, deltas.entrySet(), deltas.size(), (ps, delta) -> {
+                    ps.setLong(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+                dataVersions.likesChanged();
+            }
+            return changed;
+        });
     }
 }
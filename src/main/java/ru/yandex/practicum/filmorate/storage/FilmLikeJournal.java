@@ -0,0 +1,186 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Журнал операций с лайками, разбитый на сегменты likes-<номер>.journal. Запись считается принятой
+// только после fsync, сегмент удаляется после того, как его операции записаны в базу.
+// fsync групповой: append только пишет строку и возвращает её номер, а sync(номер) делает один force
+// за всех, чьи строки уже в файле; остальные ожидающие проверяют номер и выходят без своего force.
+// Порядок блокировок: syncLock, затем монитор журнала; force под монитором не выполняется, кроме rotate.
+class FilmLikeJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "likes-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long currentSegment;
+    private long appended;
+    private volatile long synced;
+
+    FilmLikeJournal(Path directory) {
+        this.directory = directory;
+    }
+
+    // Возвращает итоговое состояние каждой пары фильм-пользователь: true - лайк есть, false - лайка нет.
+    Map<FilmLike, Boolean> replay() {
+        Map<FilmLike, Boolean> states = new LinkedHashMap<>();
+        for (long segment : listSegments()) {
+            try (BufferedReader reader = Files.newBufferedReader(segmentPath(segment), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(" ");
+                    if (parts.length != 3) {
+                        continue; // недописанная строка после аварийного завершения
+                    }
+                    FilmLike like = new FilmLike(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                    states.put(like, "A".equals(parts[0]));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return states;
+    }
+
+    synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = listSegments();
+            currentSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            openNextSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Возвращает номер записи для sync; строка ещё не обязательно на диске.
+    synchronized long append(FilmLike like, boolean liked) {
+        String line = (liked ? "A " : "R ") + like.getFilmId() + " " + like.getUserId() + "\n";
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ++appended;
+    }
+
+    // Возвращает управление, когда запись с номером sequence и все до неё на диске.
+    void sync(long sequence) {
+        if (synced >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            FileChannel current;
+            long target;
+            synchronized (this) {
+                current = channel;
+                target = appended;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            synced = target;
+        }
+    }
+
+    // Закрывает текущий сегмент и открывает следующий; возвращает номер закрытого сегмента.
+    // Закрываемый сегмент сначала сбрасывается на диск, поэтому ожидающие sync его записей выходят сразу.
+    long rotate() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                long closedSegment = currentSegment;
+                try {
+                    channel.force(false);
+                    synced = appended;
+                    channel.close();
+                    openNextSegment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return closedSegment;
+            }
+        }
+    }
+
+    void deleteUpTo(long segment) {
+        try {
+            for (long existing : listSegments()) {
+                if (existing <= segment) {
+                    Files.deleteIfExists(segmentPath(existing));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (syncLock) {
+            synchronized (this) {
+                try {
+                    if (channel != null && channel.isOpen()) {
+                        channel.force(false);
+                        synced = appended;
+                        channel.close();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        currentSegment++;
+        channel = FileChannel.open(segmentPath(currentSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Long> listSegments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Long> segments = new ArrayList<>();
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .forEach(segments::add);
+            return segments;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+}
@@ -1,14 +1,36 @@
 package ru.yandex.practicum.filmorate.storage;
 
-import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface FilmLikeStorage {
 
-    boolean likeExists(Film film, User user);
+    boolean likeExists(long filmId, long userId);
+
+    // Возвращает true, если лайк был и удалён; решение принимается атомарно с изменением.
+    boolean removeLike(long filmId, long userId);
+
+    // Возвращает true, если лайка не было и он добавлен; решение принимается атомарно с изменением.
+    boolean addLike(long filmId, long userId);
+
+    // Возвращает лайки, которых не было и которые добавлены; уже поставленные пропускаются.
+    List<FilmLike> addLikes(Collection<FilmLike> likes);
+
+    void removeLikes(Collection<FilmLike> likes);
+
+    Map<Long, Long> getLikeCountsByFilm();
 
-    void removeLike(Film film, User user);
+    // Страница лайков после after в порядке (film_id, user_id); after = null - с начала.
+    List<FilmLike> findPage(FilmLike after, int limit);
 
-    void addLike(Film film, User user);
+    // Обходит все лайки, упорядоченные по user_id.
+    void forEachLike(LikeConsumer consumer);
 
+    @FunctionalInterface
+    interface LikeConsumer {
+        void accept(long filmId, long userId);
+    }
 }
@@ -3,18 +3,34 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 public interface FilmStorage {
 
     Optional<Film> findById(Long id);
 
+    // Проверка существования без чтения самой записи.
+    boolean existsById(long id);
+
     Collection<Film> findAll();
 
+    List<Film> findByIds(List<Long> ids);
+
+    List<Film> findPage(long afterId, int limit);
+
+    void streamAll(long afterId, Consumer<Film> consumer);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     Collection<Film> getPopularFilms(int count);
 
+    void forEachId(LongConsumer consumer);
+
 }
@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
@@ -12,6 +13,7 @@ import java.util.Collection;
 import java.util.Optional;
 
 @Repository
+@Profile("!in-memory")
 @RequiredArgsConstructor
 public class GenreDbStorage implements GenreStorage {
 
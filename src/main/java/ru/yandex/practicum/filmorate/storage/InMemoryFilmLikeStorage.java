@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.index.SortedLongSet;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Лайки в памяти в двух направлениях: пользователи каждого фильма и фильмы каждого пользователя.
+// Изменения пары фильм-пользователь выполняются под блокировкой полосы фильма, поэтому оба направления
+// всегда согласованы; чтение идёт без общих блокировок, только под монитором одного множества.
+@Component
+@Profile("in-memory")
+@RequiredArgsConstructor
+public class InMemoryFilmLikeStorage implements FilmLikeStorage {
+
+    private static final int STRIPES = 64;
+
+    private final DataVersions dataVersions;
+
+    private final ConcurrentNavigableMap<Long, SortedLongSet> usersByFilm = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Long, SortedLongSet> filmsByUser = new ConcurrentSkipListMap<>();
+    private final Object[] stripes = createStripes();
+
+    @Override
+    public boolean likeExists(long filmId, long userId) {
+        SortedLongSet userIds = usersByFilm.get(filmId);
+        return userIds != null && userIds.contains(userId);
+    }
+
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        if (!remove(filmId, userId)) {
+            return false;
+        }
+        dataVersions.likesChanged();
+        return true;
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
+        if (!add(filmId, userId)) {
+            return false;
+        }
+        dataVersions.likesChanged();
+        return true;
+    }
+
+    @Override
+    public List<FilmLike> addLikes(Collection<FilmLike> likes) {
+        List<FilmLike> added = new ArrayList<>();
+        for (FilmLike like : likes) {
+            if (add(like.getFilmId(), like.getUserId())) {
+                added.add(like);
+            }
+        }
+        if (!added.isEmpty()) {
+            dataVersions.likesChanged();
+        }
+        return added;
+    }
+
+    @Override
+    public void removeLikes(Collection<FilmLike> likes) {
+        boolean changed = false;
+        for (FilmLike like : likes) {
+            changed |= remove(like.getFilmId(), like.getUserId());
+        }
+        if (changed) {
+            dataVersions.likesChanged();
+        }
+    }
+
+    // Только фильмы, у которых есть лайки; у остальных счётчик равен нулю.
+    @Override
+    public Map<Long, Long> getLikeCountsByFilm() {
+        Map<Long, Long> likeCounts = new HashMap<>();
+        usersByFilm.forEach((filmId, userIds) -> likeCounts.put(filmId, (long) userIds.size()));
+        return likeCounts;
+    }
+
+    public long countLikes(long filmId) {
+        SortedLongSet userIds = usersByFilm.get(filmId);
+        return userIds == null ? 0 : userIds.size();
+    }
+
+    @Override
+    public List<FilmLike> findPage(FilmLike after, int limit) {
+        long afterFilmId = after == null ? 0 : after.getFilmId();
+        long afterUserId = after == null ? 0 : after.getUserId();
+        List<FilmLike> page = new ArrayList<>(limit);
+        for (Map.Entry<Long, SortedLongSet> entry : usersByFilm.tailMap(afterFilmId, true).entrySet()) {
+            long filmId = entry.getKey();
+            long fromUserId = filmId == afterFilmId ? afterUserId : Long.MIN_VALUE;
+            for (long userId : entry.getValue().after(fromUserId, limit - page.size())) {
+                page.add(new FilmLike(filmId, userId));
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void forEachLike(LikeConsumer consumer) {
+        filmsByUser.forEach((userId, filmIds) -> {
+            for (long filmId : filmIds.toArray()) {
+                consumer.accept(filmId, userId);
+            }
+        });
+    }
+
+    private boolean add(long filmId, long userId) {
+        synchronized (stripe(filmId)) {
+            if (!usersByFilm.computeIfAbsent(filmId, key -> new SortedLongSet()).add(userId)) {
+                return false;
+            }
+            filmsByUser.computeIfAbsent(userId, key -> new SortedLongSet()).add(filmId);
+            return true;
+        }
+    }
+
+    // Пустое множество фильма удаляется сразу: все его изменения идут под той же полосой. Множество
+    // пользователя меняется из разных полос, поэтому остаётся в карте и после удаления последнего лайка.
+    private boolean remove(long filmId, long userId) {
+        synchronized (stripe(filmId)) {
+            SortedLongSet userIds = usersByFilm.get(filmId);
+            if (userIds == null || !userIds.remove(userId)) {
+                return false;
+            }
+            if (userIds.size() == 0) {
+                usersByFilm.remove(filmId, userIds);
+            }
+            SortedLongSet filmIds = filmsByUser.get(userId);
+            if (filmIds != null) {
+                filmIds.remove(filmId);
+            }
+            return true;
+        }
+    }
+
+    private Object stripe(long filmId) {
+        return stripes[(int) (filmId & (STRIPES - 1))];
+    }
+
+    private static Object[] createStripes() {
+        Object[] stripes = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        return stripes;
+    }
+}
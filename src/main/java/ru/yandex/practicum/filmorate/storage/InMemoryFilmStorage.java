@@ -1,49 +1,130 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.index.TopK;
 import ru.yandex.practicum.filmorate.model.Film;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
 
+// Фильмы в памяти, упорядоченные по id. В карте лежат копии, и чтение тоже отдаёт копии вместе с рейтингом
+// и жанрами: запись заменяет фильм целиком, поэтому читатели видят либо старую, либо новую версию,
+// а изменения объектов у вызывающего кода не попадают в хранилище.
 @Component
+@Profile("in-memory")
+@RequiredArgsConstructor
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Long, Film> films = new HashMap<>();
-    private long currentMaxId = 0;
+    private final ReferenceDataCache referenceDataCache;
+    private final InMemoryFilmLikeStorage filmLikeStorage;
+    private final DataVersions dataVersions;
+
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastId = new AtomicLong();
 
     @Override
     public Optional<Film> findById(Long id) {
-        return Optional.ofNullable(films.get(id));
+        return Optional.ofNullable(id == null ? null : films.get(id)).map(InMemoryFilmStorage::copy);
     }
 
     @Override
     public Collection<Film> findAll() {
-        return films.values();
+        return films.values().stream()
+                .map(InMemoryFilmStorage::copy)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public List<Film> findByIds(List<Long> ids) {
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .map(InMemoryFilmStorage::copy)
+                .toList();
+    }
+
+    @Override
+    public List<Film> findPage(long afterId, int limit) {
+        return films.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(InMemoryFilmStorage::copy)
+                .toList();
+    }
+
+    @Override
+    public void streamAll(long afterId, Consumer<Film> consumer) {
+        films.tailMap(afterId, false).values().forEach(film -> consumer.accept(copy(film)));
     }
 
     @Override
     public Film create(Film film) {
-        film.setId(getNextId());
-        films.put(film.getId(), film);
+        referenceDataCache.resolveMpaAndGenres(film);
+        film.setId(lastId.incrementAndGet());
+        films.put(film.getId(), copy(film));
+        dataVersions.filmsChanged();
         return film;
     }
 
+    // Все фильмы проверяются до записи первого из них.
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        films.forEach(referenceDataCache::resolveMpaAndGenres);
+        for (Film film : films) {
+            film.setId(lastId.incrementAndGet());
+            this.films.put(film.getId(), copy(film));
+        }
+        dataVersions.filmsChanged();
+        return films;
+    }
+
     @Override
     public Film update(Film film) {
-        films.put(film.getId(), film);
+        referenceDataCache.resolveMpaAndGenres(film);
+        if (films.replace(film.getId(), copy(film)) == null) {
+            throw new ConditionsNotMetException("Фильм с id = " + film.getId() + " не найден.");
+        }
+        if (film.getGenres() == null) {
+            film.setGenres(new LinkedHashSet<>());
+        }
+        dataVersions.filmsChanged();
         return film;
     }
 
     @Override
     public Collection<Film> getPopularFilms(int count) {
-        return List.of();
+        TopK top = new TopK(count);
+        films.keySet().forEach(filmId -> top.offer(filmId, filmLikeStorage.countLikes(filmId)));
+        return findByIds(Arrays.stream(top.drainDescending()).boxed().toList());
+    }
+
+    @Override
+    public boolean existsById(long id) {
+        return films.containsKey(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer consumer) {
+        films.keySet().forEach(consumer::accept);
     }
 
-    private long getNextId() {
-        return ++currentMaxId;
+    private static Film copy(Film film) {
+        return FilmCopies.copy(film);
     }
 }
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Те же жанры, что заводит data.sql.
+@Component
+@Profile("in-memory")
+public class InMemoryGenreStorage implements GenreStorage {
+
+    private static final List<Genre> GENRES = List.of(
+            new Genre(1L, "Комедия"),
+            new Genre(2L, "Драма"),
+            new Genre(3L, "Мультфильм"),
+            new Genre(4L, "Триллер"),
+            new Genre(5L, "Документальный"),
+            new Genre(6L, "Боевик")
+    );
+
+    private final Map<Long, Genre> genresById = GENRES.stream()
+            .collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity()));
+
+    @Override
+    public Optional<Genre> findById(Long id) {
+        return Optional.ofNullable(id == null ? null : genresById.get(id));
+    }
+
+    @Override
+    public Collection<Genre> findAll() {
+        return GENRES;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Те же рейтинги и id, что заводит data.sql.
+@Component
+@Profile("in-memory")
+public class InMemoryMpaStorage implements MpaStorage {
+
+    private static final List<Mpa> MPAS = List.of(
+            new Mpa(1, "G", "У фильма нет возрастных ограничений."),
+            new Mpa(2, "PG", "Детям рекомендуется смотреть фильм с родителями."),
+            new Mpa(3, "PG-13", "Детям до 13 лет просмотр не желателен."),
+            new Mpa(4, "R", "Лицам до 17 лет просмотр можно только в присутствии взрослого."),
+            new Mpa(5, "NC-17", "Лицам до 18 лет просмотр запрещён.")
+    );
+
+    private final Map<Long, Mpa> mpasById = MPAS.stream()
+            .collect(Collectors.toUnmodifiableMap(Mpa::getId, Function.identity()));
+
+    @Override
+    public Optional<Mpa> findById(Long id) {
+        return Optional.ofNullable(id == null ? null : mpasById.get(id));
+    }
+
+    @Override
+    public Collection<Mpa> findAll() {
+        return MPAS;
+    }
+}
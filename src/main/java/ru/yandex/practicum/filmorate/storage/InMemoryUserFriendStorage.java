@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.index.SortedLongSet;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Дружба в памяти: для каждого пользователя - отсортированное множество id друзей.
+@Component
+@Profile("in-memory")
+@RequiredArgsConstructor
+public class InMemoryUserFriendStorage implements UserFriendStorage {
+
+    private final UserStorage userStorage;
+
+    private final ConcurrentNavigableMap<Long, SortedLongSet> friendsByUser = new ConcurrentSkipListMap<>();
+
+    @Override
+    public boolean addFriend(long userId, long friendId) {
+        return friendsByUser.computeIfAbsent(userId, key -> new SortedLongSet()).add(friendId);
+    }
+
+    @Override
+    public void removeFriend(long userId, long friendId) {
+        SortedLongSet friendIds = friendsByUser.get(userId);
+        if (friendIds != null) {
+            friendIds.remove(friendId);
+        }
+    }
+
+    @Override
+    public void addFriends(Collection<Friendship> friendships) {
+        for (Friendship friendship : friendships) {
+            addFriend(friendship.getUserId(), friendship.getFriendId());
+        }
+    }
+
+    @Override
+    public Collection<User> getFriends(long userId) {
+        SortedLongSet friendIds = friendsByUser.get(userId);
+        if (friendIds == null) {
+            return List.of();
+        }
+        return userStorage.findByIds(Arrays.stream(friendIds.toArray()).boxed().toList());
+    }
+
+    @Override
+    public List<Friendship> findPage(Friendship after, int limit) {
+        long afterUserId = after == null ? 0 : after.getUserId();
+        long afterFriendId = after == null ? 0 : after.getFriendId();
+        List<Friendship> page = new ArrayList<>(limit);
+        for (Map.Entry<Long, SortedLongSet> entry : friendsByUser.tailMap(afterUserId, true).entrySet()) {
+            long userId = entry.getKey();
+            long fromFriendId = userId == afterUserId ? afterFriendId : Long.MIN_VALUE;
+            for (long friendId : entry.getValue().after(fromFriendId, limit - page.size())) {
+                page.add(new Friendship(userId, friendId));
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void forEachFriendship(FriendshipConsumer consumer) {
+        friendsByUser.forEach((userId, friendIds) -> {
+            for (long friendId : friendIds.toArray()) {
+                consumer.accept(userId, friendId);
+            }
+        });
+    }
+}
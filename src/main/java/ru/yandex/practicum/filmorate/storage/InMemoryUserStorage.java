@@ -1,43 +1,95 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
 
+// Пользователи в памяти, упорядоченные по id; как и в InMemoryFilmStorage, в карте лежат копии
+// и чтение отдаёт копии.
 @Component
+@Profile("in-memory")
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Long, User> users = new HashMap<>();
-    private long currentMaxId = 0;
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastId = new AtomicLong();
 
     @Override
     public Optional<User> findById(Long id) {
-        return Optional.ofNullable(users.get(id));
+        return Optional.ofNullable(id == null ? null : users.get(id)).map(InMemoryUserStorage::copy);
     }
 
     @Override
     public Collection<User> findAll() {
-        return users.values();
+        return users.values().stream()
+                .map(InMemoryUserStorage::copy)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    @Override
+    public List<User> findByIds(List<Long> ids) {
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(InMemoryUserStorage::copy)
+                .toList();
+    }
+
+    @Override
+    public List<User> findPage(long afterId, int limit) {
+        return users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .map(InMemoryUserStorage::copy)
+                .toList();
     }
 
     @Override
     public User create(User user) {
-        user.setId(getNextId());
-        users.put(user.getId(), user);
+        user.setId(lastId.incrementAndGet());
+        users.put(user.getId(), copy(user));
         return user;
     }
 
+    @Override
+    public List<User> createAll(List<User> users) {
+        users.forEach(this::create);
+        return users;
+    }
+
+    // Как и UPDATE в UserDbStorage, не создаёт пользователя с неизвестным id.
     @Override
     public User update(User user) {
-        users.put(user.getId(), user);
+        users.replace(user.getId(), copy(user));
         return user;
     }
 
-    private long getNextId() {
-        return ++currentMaxId;
+    @Override
+    public boolean existsById(long id) {
+        return users.containsKey(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer consumer) {
+        users.keySet().forEach(consumer::accept);
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        return copy;
     }
 }
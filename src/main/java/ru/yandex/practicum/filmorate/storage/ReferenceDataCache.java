@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Неизменяемый снимок справочников жанров и рейтингов MPA. Снимок перечитывается из базы,
+// если запрошен неизвестный id, но не чаще, чем раз в minRefreshInterval. Genre и Mpa изменяемы,
+// поэтому снимок хранит собственные копии, а наружу и в фильмы отдаются новые копии.
+@Component
+@Slf4j
+public class ReferenceDataCache {
+
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersions dataVersions;
+    private final long minRefreshIntervalNanos;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of(), Map.of(), List.of());
+    private volatile long lastRefreshNanos;
+    private boolean loaded;
+
+    public ReferenceDataCache(GenreStorage genreStorage,
+                              MpaStorage mpaStorage,
+                              ApplicationEventPublisher eventPublisher,
+                              DataVersions dataVersions,
+                              @Value("${filmorate.reference-cache.min-refresh-interval:5s}") Duration minRefreshInterval) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.eventPublisher = eventPublisher;
+        this.dataVersions = dataVersions;
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+    }
+
+    @PostConstruct
+    public synchronized void refresh() {
+        List<Genre> genres = genreStorage.findAll().stream()
+                .map(ReferenceDataCache::copy)
+                .sorted(Comparator.comparing(Genre::getId))
+                .toList();
+        List<Mpa> mpas = mpaStorage.findAll().stream()
+                .map(ReferenceDataCache::copy)
+                .sorted(Comparator.comparingLong(Mpa::getId))
+                .toList();
+
+        snapshot = new Snapshot(
+                genres.stream().collect(Collectors.toUnmodifiableMap(Genre::getId, Function.identity())),
+                genres,
+                mpas.stream().collect(Collectors.toUnmodifiableMap(Mpa::getId, Function.identity())),
+                mpas
+        );
+        lastRefreshNanos = System.nanoTime();
+        log.info("Справочники загружены: жанров {}, рейтингов MPA {}", genres.size(), mpas.size());
+
+        if (loaded) {
+            eventPublisher.publishEvent(new RefreshedEvent());
+        }
+        loaded = true;
+        dataVersions.referenceDataChanged();
+    }
+
+    public Optional<Genre> findGenre(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Genre genre = snapshot.genresById().get(id);
+        if (genre == null) {
+            refreshIfStale();
+            genre = snapshot.genresById().get(id);
+        }
+        return Optional.ofNullable(genre).map(ReferenceDataCache::copy);
+    }
+
+    public Collection<Genre> findAllGenres() {
+        return snapshot.genres().stream()
+                .map(ReferenceDataCache::copy)
+                .toList();
+    }
+
+    public Optional<Mpa> findMpa(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Mpa mpa = snapshot.mpasById().get(id);
+        if (mpa == null) {
+            refreshIfStale();
+            mpa = snapshot.mpasById().get(id);
+        }
+        return Optional.ofNullable(mpa).map(ReferenceDataCache::copy);
+    }
+
+    public Collection<Mpa> findAllMpas() {
+        return snapshot.mpas().stream()
+                .map(ReferenceDataCache::copy)
+                .toList();
+    }
+
+    // Заменяет рейтинг и жанры фильма записями справочников, жанры сортируются по id.
+    public void resolveMpaAndGenres(Film film) {
+        Long mpaId = film.getMpa() == null ? null : film.getMpa().getId();
+        Mpa mpa = findMpa(mpaId)
+                .orElseThrow(() -> new ConditionsNotMetException("Рейтинг MPA с id = " + mpaId + " не найден."));
+        film.setMpa(mpa);
+
+        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
+            Set<Genre> genres = new TreeSet<>(Comparator.comparing(Genre::getId));
+            for (Genre genre : film.getGenres()) {
+                genres.add(findGenre(genre.getId())
+                        .orElseThrow(() -> new ConditionsNotMetException("Жанр с id = " + genre.getId() + " не найден.")));
+            }
+            film.setGenres(new LinkedHashSet<>(genres));
+        }
+    }
+
+    private synchronized void refreshIfStale() {
+        if (System.nanoTime() - lastRefreshNanos >= minRefreshIntervalNanos) {
+            refresh();
+        }
+    }
+
+    private static Genre copy(Genre genre) {
+        return new Genre(genre.getId(), genre.getName());
+    }
+
+    private static Mpa copy(Mpa mpa) {
+        return new Mpa(mpa.getId(), mpa.getName(), mpa.getDescription());
+    }
+
+    public record RefreshedEvent() {
+    }
+
+    private record Snapshot(Map<Long, Genre> genresById, List<Genre> genres,
+                            Map<Long, Mpa> mpasById, List<Mpa> mpas) {
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Разовые изменения уже существующих баз, которые нельзя повторять в schema.sql при каждом запуске:
+// ALTER COLUMN в H2 перестраивает таблицу, даже если тип столбца не меняется. Выполненные миграции
+// отмечаются в schema_migrations. Выполняется после schema.sql и до всех бинов, использующих JdbcTemplate
+// (см. SchemaMigrationsDetector), поэтому работает с DataSource напрямую.
+@Component
+@Profile("!in-memory")
+@Slf4j
+public class SchemaMigrations {
+
+    private static final String LIKE_COUNTS = "like-counts";
+
+    // Столбцы, созданные как INTEGER, хотя ссылаются на BIGINT id.
+    private static final List<String[]> BIGINT_COLUMNS = List.of(
+            new String[]{"FILMS", "MPA_RATING_ID"},
+            new String[]{"FILM_GENRES", "FILM_ID"},
+            new String[]{"FILM_GENRES", "GENRE_ID"},
+            new String[]{"FILM_LIKES", "FILM_ID"},
+            new String[]{"FILM_LIKES", "USER_ID"}
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaMigrations(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (isApplied(LIKE_COUNTS)) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (String[] column : BIGINT_COLUMNS) {
+            widenToBigint(column[0], column[1]);
+        }
+        int films = jdbcTemplate.update("UPDATE films f SET like_count = " +
+                "(SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id)");
+        jdbcTemplate.update("INSERT INTO schema_migrations (version) VALUES (?)", LIKE_COUNTS);
+        log.info("Миграция {} выполнена за {} мс, пересчитаны лайки фильмов: {}",
+                LIKE_COUNTS, (System.nanoTime() - start) / 1_000_000, films);
+    }
+
+    private boolean isApplied(String version) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_migrations WHERE version = ?",
+                Integer.class, version);
+        return count != null && count > 0;
+    }
+
+    private void widenToBigint(String table, String column) {
+        String type = jdbcTemplate.queryForObject("SELECT data_type FROM information_schema.columns " +
+                "WHERE table_schema = SCHEMA() AND table_name = ? AND column_name = ?", String.class, table, column);
+        if (!"BIGINT".equals(type)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " SET DATA TYPE BIGINT");
+            log.info("Столбец {}.{} переведён из {} в BIGINT", table, column, type);
+        }
+    }
+}
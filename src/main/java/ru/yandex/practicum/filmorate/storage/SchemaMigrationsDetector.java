@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDatabaseInitializerDetector;
+
+import java.util.Set;
+
+// Регистрирует SchemaMigrations как инициализатор базы: Spring Boot запускает его после schema.sql
+// (детектор скриптов имеет меньший порядок) и до бинов, зависящих от инициализации базы.
+public class SchemaMigrationsDetector extends AbstractBeansOfTypeDatabaseInitializerDetector {
+
+    @Override
+    protected Set<Class<?>> getDatabaseInitializerBeanTypes() {
+        return Set.of(SchemaMigrations.class);
+    }
+
+    @Override
+    public int getOrder() {
+        return LOWEST_PRECEDENCE - 50;
+    }
+}
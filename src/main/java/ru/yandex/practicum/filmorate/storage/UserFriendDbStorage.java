@@ -2,18 +2,21 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.mapper.UserMapper;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Repository
+@Profile("!in-memory")
 @Primary
 @RequiredArgsConstructor
 public class UserFriendDbStorage implements UserFriendStorage {
@@ -22,35 +25,62 @@ public class UserFriendDbStorage implements UserFriendStorage {
     private final UserMapper userMapper;
 
     @Override
-    public void addFriend(User user, User friend) {
-        String sqlAddUserToFriends = "INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)";
-        jdbcTemplate.update(sqlAddUserToFriends, user.getId(), friend.getId());
+    public boolean addFriend(long userId, long friendId) {
+        String sqlAddUserToFriends = "INSERT INTO user_friends (user_id, friend_id) SELECT ?, ? FROM DUAL " +
+                "WHERE NOT EXISTS (SELECT 1 FROM user_friends WHERE user_id = ? AND friend_id = ?)";
+        try {
+            return jdbcTemplate.update(sqlAddUserToFriends, userId, friendId, userId, friendId) > 0;
+        } catch (DuplicateKeyException e) {
+            // Ту же дружбу одновременно вставил другой запрос.
+            return false;
+        }
     }
 
     @Override
-    public void removeFriend(User user, User friend) {
+    public void removeFriend(long userId, long friendId) {
         String sqlRemoveUserFromFriends = "DELETE FROM user_friends WHERE user_id = ? AND friend_id = ?";
-        jdbcTemplate.update(sqlRemoveUserFromFriends, user.getId(), friend.getId());
+        jdbcTemplate.update(sqlRemoveUserFromFriends, userId, friendId);
     }
 
     @Override
-    public Collection<User> getFriends(User user) {
-        String sql = "SELECT friend_id FROM user_friends WHERE user_id = ?";
-        List<Long> friendIds = jdbcTemplate.queryForList(sql, Long.class, user.getId());
-
-        return friendIds.stream()
-                .map(this::findById)
-                .map(x -> x.orElse(null))
-                .collect(Collectors.toList());
+    public void addFriends(Collection<Friendship> friendships) {
+        String sql = "MERGE INTO user_friends (user_id, friend_id) KEY (user_id, friend_id) VALUES (?, ?)";
+        jdbcTemplate.batchUpdate(sql, friendships, friendships.size(), (ps, friendship) -> {
+            ps.setLong(1, friendship.getUserId());
+            ps.setLong(2, friendship.getFriendId());
+        });
     }
 
-    private Optional<User> findById(Long id) {
-        String sql = "SELECT * FROM users WHERE id = ?";
-        try {
-            User user = jdbcTemplate.queryForObject(sql, userMapper, id);
-            return Optional.ofNullable(user);
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
-        }
+    @Override
+    public Collection<User> getFriends(long userId) {
+        String sql = "SELECT u.* FROM user_friends uf JOIN users u ON u.id = uf.friend_id WHERE uf.user_id = ? ORDER BY u.id";
+        return jdbcTemplate.query(sql, userMapper, userId);
+    }
+
+    @Override
+    public List<Friendship> findPage(Friendship after, int limit) {
+        String sql = "SELECT user_id, friend_id FROM user_friends " +
+                "WHERE user_id > ? OR (user_id = ? AND friend_id > ?) " +
+                "ORDER BY user_id, friend_id LIMIT ?";
+        long afterUserId = after == null ? 0 : after.getUserId();
+        long afterFriendId = after == null ? 0 : after.getFriendId();
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(limit);
+            ps.setLong(1, afterUserId);
+            ps.setLong(2, afterUserId);
+            ps.setLong(3, afterFriendId);
+            ps.setInt(4, limit);
+            return ps;
+        }, (rs, rowNum) -> new Friendship(rs.getLong("user_id"), rs.getLong("friend_id")));
+    }
+
+    @Override
+    public void forEachFriendship(FriendshipConsumer consumer) {
+        String sql = "SELECT user_id, friend_id FROM user_friends ORDER BY user_id";
+        jdbcTemplate.query(sql, rs -> {
+            consumer.accept(rs.getLong("user_id"), rs.getLong("friend_id"));
+        });
     }
-}
\ No newline at end of file
+}
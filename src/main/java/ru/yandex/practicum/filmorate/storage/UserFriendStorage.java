@@ -1,14 +1,30 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserFriendStorage {
 
-    void addFriend(User user, User friend);
+    // Возвращает true, если дружбы не было и она добавлена; решение принимается атомарно с изменением.
+    boolean addFriend(long userId, long friendId);
 
-    void removeFriend(User user, User friend);
+    void removeFriend(long userId, long friendId);
 
-    Collection<User> getFriends(User user);
+    void addFriends(Collection<Friendship> friendships);
+
+    Collection<User> getFriends(long userId);
+
+    // Страница пар дружбы после after в порядке (user_id, friend_id); after = null - с начала.
+    List<Friendship> findPage(Friendship after, int limit);
+
+    // Обходит все пары дружбы, упорядоченные по user_id.
+    void forEachFriendship(FriendshipConsumer consumer);
+
+    @FunctionalInterface
+    interface FriendshipConsumer {
+        void accept(long userId, long friendId);
+    }
 }
\ No newline at end of file
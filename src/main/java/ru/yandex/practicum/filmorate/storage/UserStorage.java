@@ -3,16 +3,30 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.LongConsumer;
 
 public interface UserStorage {
 
     Optional<User> findById(Long id);
 
+    // Проверка существования без чтения самой записи.
+    boolean existsById(long id);
+
     Collection<User> findAll();
 
+    List<User> findByIds(List<Long> ids);
+
+    // Страница пользователей с id больше afterId в порядке возрастания id.
+    List<User> findPage(long afterId, int limit);
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User user);
 
+    void forEachId(LongConsumer consumer);
+
 }
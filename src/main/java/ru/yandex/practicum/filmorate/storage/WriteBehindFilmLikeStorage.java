@@ -0,0 +1,328 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Асинхронная запись лайков: операции попадают в журнал и в буфер, где лайк и последующая отмена
+// взаимно гасятся, а затем пачками записываются в базу раз в flushInterval или по набору batchSize операций.
+@Repository
+@Profile("!in-memory")
+@Primary
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class WriteBehindFilmLikeStorage implements FilmLikeStorage {
+
+    private final FilmLikeStorage delegate;
+    private final TransactionTemplate transactionTemplate;
+    private final FilmLikeJournal journal;
+    private final DataVersions dataVersions;
+    private final int batchSize;
+    private final int capacity;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "film-like-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Map<FilmLike, Boolean> pending = new LinkedHashMap<>();
+    private Map<FilmLike, Boolean> inFlight = Map.of();
+    // Растёт при каждом изменении лайков в базе; по нему видно, что прочитанное из базы без блокировки устарело.
+    private long writtenGeneration;
+
+    public WriteBehindFilmLikeStorage(@Qualifier("filmLikeDbStorage") FilmLikeStorage delegate,
+                                      PlatformTransactionManager transactionManager,
+                                      DataVersions dataVersions,
+                                      @Value("${filmorate.likes.write-behind.journal-dir:./db/likes-journal}") Path journalDir,
+                                      @Value("${filmorate.likes.write-behind.batch-size:500}") int batchSize,
+                                      @Value("${filmorate.likes.write-behind.capacity:10000}") int capacity,
+                                      @Value("${filmorate.likes.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                      @Value("${filmorate.likes.write-behind.offer-timeout:100ms}") Duration offerTimeout) {
+        this.delegate = delegate;
+        // Буфер пишется в собственной транзакции: откат транзакции вызывающего кода (например, пачки
+        // загрузки) не должен терять лайки, которые уже подтверждены и удалены из журнала.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.journal = new FilmLikeJournal(journalDir);
+        this.dataVersions = dataVersions;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        Map<FilmLike, Boolean> replayed = journal.replay();
+        if (!replayed.isEmpty()) {
+            write(replayed);
+            log.info("Из журнала восстановлено операций с лайками: {}", replayed.size());
+        }
+        journal.deleteUpTo(Long.MAX_VALUE);
+        journal.open();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        try {
+            flush();
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Override
+    public boolean likeExists(long filmId, long userId) {
+        FilmLike like = new FilmLike(filmId, userId);
+        lock.lock();
+        try {
+            Boolean state = bufferedState(like);
+            if (state != null) {
+                return state;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return delegate.likeExists(filmId, userId);
+    }
+
+    @Override
+    public boolean removeLike(long filmId, long userId) {
+        return enqueue(new FilmLike(filmId, userId), false);
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
+        return enqueue(new FilmLike(filmId, userId), true);
+    }
+
+    @Override
+    public List<FilmLike> addLikes(Collection<FilmLike> likes) {
+        flush();
+        List<FilmLike> added = delegate.addLikes(likes);
+        advanceGeneration();
+        return added;
+    }
+
+    @Override
+    public void removeLikes(Collection<FilmLike> likes) {
+        flush();
+        delegate.removeLikes(likes);
+        advanceGeneration();
+    }
+
+    @Override
+    public Map<Long, Long> getLikeCountsByFilm() {
+        flush();
+        return delegate.getLikeCountsByFilm();
+    }
+
+    @Override
+    public List<FilmLike> findPage(FilmLike after, int limit) {
+        flush();
+        return delegate.findPage(after, limit);
+    }
+
+    @Override
+    public void forEachLike(LikeConsumer consumer) {
+        flush();
+        delegate.forEachLike(consumer);
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<FilmLike, Boolean> batch;
+            long closedSegment;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                inFlight = batch;
+                pending = new LinkedHashMap<>();
+                closedSegment = journal.rotate();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                lock.lock();
+                try {
+                    batch.forEach(pending::putIfAbsent);
+                    inFlight = Map.of();
+                } finally {
+                    lock.unlock();
+                }
+                throw e;
+            }
+
+            journal.deleteUpTo(closedSegment);
+            lock.lock();
+            try {
+                inFlight = Map.of();
+                writtenGeneration++;
+            } finally {
+                lock.unlock();
+            }
+            log.debug("Записано операций с лайками: {}", batch.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Изменилось ли состояние лайка, решается под блокировкой вместе с постановкой в буфер. Состояние
+    // из базы читается без блокировки и годится, только если за это время буфер и база не менялись.
+    // Под блокировкой операция только попадает в буфер и в файл журнала; fsync выполняется после неё
+    // и общий на все операции, записанные к этому моменту.
+    private boolean enqueue(FilmLike like, boolean liked) {
+        long sequence;
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        Boolean stored = null;
+        long storedGeneration = -1;
+        lock.lock();
+        try {
+            while (true) {
+                Boolean state = bufferedState(like);
+                if (state == null && (stored == null || storedGeneration != writtenGeneration)) {
+                    storedGeneration = writtenGeneration;
+                    lock.unlock();
+                    try {
+                        stored = delegate.likeExists(like.getFilmId(), like.getUserId());
+                    } finally {
+                        lock.lock();
+                    }
+                    continue;
+                }
+                if ((state == null ? stored : state) == liked) {
+                    return false;
+                }
+                if (pending.containsKey(like)) {
+                    // Лайк и его отмена, ещё не дошедшие до базы, взаимно гасятся.
+                    pending.remove(like);
+                    break;
+                }
+                if (pending.size() < capacity) {
+                    pending.put(like, liked);
+                    break;
+                }
+                long waitNanos = deadline - System.nanoTime();
+                if (waitNanos <= 0) {
+                    throw new ServiceUnavailableException("Очередь лайков переполнена, повторите запрос позже.", 1);
+                }
+                notFull.awaitNanos(waitNanos);
+            }
+            sequence = journal.append(like, liked);
+            dataVersions.likesChanged();
+            if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+                requestFlush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Запись лайка прервана.", 1);
+        } finally {
+            lock.unlock();
+        }
+        journal.sync(sequence);
+        return true;
+    }
+
+    private Boolean bufferedState(FilmLike like) {
+        Boolean state = pending.get(like);
+        return state != null ? state : inFlight.get(like);
+    }
+
+    // Пакетная запись идёт в транзакции загрузки: поколение сдвигается и сразу, и после её завершения,
+    // чтобы чтение из базы, попавшее между ними, тоже считалось устаревшим.
+    private void advanceGeneration() {
+        incrementGeneration();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    incrementGeneration();
+                }
+            });
+        }
+    }
+
+    private void incrementGeneration() {
+        lock.lock();
+        try {
+            writtenGeneration++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requestFlush() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            // Хранилище останавливается: буфер запишет stop(), а оставшееся после него - повтор журнала.
+            flushRequested.set(false);
+        }
+    }
+
+    private void write(Map<FilmLike, Boolean> batch) {
+        List<FilmLike> added = new ArrayList<>();
+        List<FilmLike> removed = new ArrayList<>();
+        batch.forEach((like, liked) -> (liked ? added : removed).add(like));
+        transactionTemplate.executeWithoutResult(status -> {
+            delegate.addLikes(added);
+            delegate.removeLikes(removed);
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать лайки в базу, повторная попытка через {} мс", flushIntervalMillis, e);
+        }
+    }
+}
@@ -15,13 +15,14 @@ CREATE TABLE IF NOT EXISTS films (
                                      description VARCHAR,
                                      release_date DATE,
                                      duration INTEGER NOT NULL,
-                                     mpa_rating_id INTEGER NOT NULL,
+                                     mpa_rating_id BIGINT NOT NULL,
+                                     like_count BIGINT DEFAULT 0 NOT NULL,
                                      CONSTRAINT fk_mpa_rating FOREIGN KEY (mpa_rating_id) REFERENCES mpa_ratings(id)
     );
 
 CREATE TABLE IF NOT EXISTS film_genres (
-                                           film_id INTEGER NOT NULL,
-                                           genre_id INTEGER NOT NULL,
+                                           film_id BIGINT NOT NULL,
+                                           genre_id BIGINT NOT NULL,
                                            CONSTRAINT fk_film FOREIGN KEY (film_id) REFERENCES films(id),
     CONSTRAINT fk_genre FOREIGN KEY (genre_id) REFERENCES genres(id),
     PRIMARY KEY (film_id, genre_id)
@@ -36,8 +37,8 @@ CREATE TABLE IF NOT EXISTS users (
     );
 
 CREATE TABLE IF NOT EXISTS film_likes (
-                                          film_id INTEGER NOT NULL,
-                                          user_id INTEGER NOT NULL,
+                                          film_id BIGINT NOT NULL,
+                                          user_id BIGINT NOT NULL,
                                           CONSTRAINT fk_film_like FOREIGN KEY (film_id) REFERENCES films(id),
     CONSTRAINT fk_user_like FOREIGN KEY (user_id) REFERENCES users(id),
     PRIMARY KEY (film_id, user_id)
@@ -50,3 +51,16 @@ CREATE TABLE IF NOT EXISTS user_friends (
     CONSTRAINT fk_friend FOREIGN KEY (friend_id) REFERENCES users(id),
     PRIMARY KEY (user_id, friend_id)
     );
+
+-- Базы, созданные до появления счётчика лайков: столбец добавляется здесь, а перевод столбцов в BIGINT
+-- и заполнение счётчика выполняются один раз в SchemaMigrations.
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count BIGINT DEFAULT 0 NOT NULL;
+
+-- Популярные фильмы читаются по этому индексу в порядке убывания лайков без группировки film_likes.
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films (like_count DESC, id);
+CREATE INDEX IF NOT EXISTS idx_film_likes_user_id ON film_likes (user_id);
+
+CREATE TABLE IF NOT EXISTS schema_migrations (
+                                                 version VARCHAR PRIMARY KEY,
+                                                 applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
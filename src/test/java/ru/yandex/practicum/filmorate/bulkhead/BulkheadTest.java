@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.bulkhead;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadTest {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	public void testRejectsWhenQueueIsFull() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("test", 1, 1, 1, 5_000 * MILLIS, 0, 0.9);
+		assertThat(bulkhead.tryAcquire()).isTrue();
+
+		CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> {
+			try {
+				return bulkhead.tryAcquire();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		while (bulkhead.getQueued() == 0) {
+			Thread.onSpinWait();
+		}
+		assertThat(bulkhead.tryAcquire()).isFalse();
+
+		bulkhead.release(MILLIS);
+		assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(bulkhead.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	public void testQueuedRequestTimesOut() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("test", 1, 1, 1, 10 * MILLIS, 0, 0.9);
+		assertThat(bulkhead.tryAcquire()).isTrue();
+		assertThat(bulkhead.tryAcquire()).isFalse();
+		assertThat(bulkhead.getQueued()).isZero();
+	}
+
+	@Test
+	public void testLimitFollowsLatency() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("test", 2, 8, 0, 0, 1, 0.5);
+		assertThat(bulkhead.getLimit()).isEqualTo(8);
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(bulkhead.tryAcquire()).isTrue();
+			Thread.sleep(1);
+			bulkhead.release(10 * MILLIS);
+		}
+		assertThat(bulkhead.getLimit()).isEqualTo(2);
+
+		// Рост только при полной загрузке: по 1/limit на быстрый ответ.
+		for (int i = 0; i < 20; i++) {
+			while (bulkhead.getInFlight() < bulkhead.getLimit()) {
+				assertThat(bulkhead.tryAcquire()).isTrue();
+			}
+			bulkhead.release(0);
+		}
+		assertThat(bulkhead.getLimit()).isGreaterThan(2);
+	}
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Маленькая страница выгрузки: каждая выгрузка читается за несколько запросов по ключу.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:export-controller",
+		"filmorate.export.chunk-size=2",
+		"logging.level.org.zalando.logbook=INFO"})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ExportControllerTests {
+
+	private static final int FILMS = 5;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private FilmStorage filmStorage;
+
+	@Autowired
+	private UserStorage userStorage;
+
+	@Autowired
+	private FilmLikeStorage filmLikeStorage;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp() {
+		filmStorage.createAll(IntStream.rangeClosed(1, FILMS)
+				.mapToObj(i -> new Film(0, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 100,
+						new Mpa(1L, null, null), null))
+				.toList());
+		userStorage.createAll(IntStream.rangeClosed(1, 3)
+				.mapToObj(i -> {
+					User user = new User();
+					user.setEmail("user" + i + "@example.com");
+					user.setLogin("user" + i);
+					user.setName("User " + i);
+					user.setBirthday(LocalDate.of(2000, 1, 1));
+					return user;
+				})
+				.toList());
+		filmLikeStorage.addLikes(List.of(new FilmLike(1, 1), new FilmLike(1, 2), new FilmLike(1, 3),
+				new FilmLike(3, 2), new FilmLike(5, 1)));
+	}
+
+	@Test
+	public void testExportContinuesAcrossPages() throws Exception {
+		MockHttpServletResponse films = export("/export/films", null);
+		assertThat(films.getContentType()).startsWith("application/x-ndjson");
+		assertThat(films.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(lines(films.getContentAsByteArray()))
+				.extracting(film -> film.get("id").asLong())
+				.containsExactly(1L, 2L, 3L, 4L, 5L);
+
+		// Страница из двух лайков заканчивается посреди лайков первого фильма.
+		assertThat(lines(export("/export/likes", null).getContentAsByteArray()))
+				.extracting(like -> like.get("filmId").asLong() + ":" + like.get("userId").asLong())
+				.containsExactly("1:1", "1:2", "1:3", "3:2", "5:1");
+	}
+
+	@Test
+	public void testGzipFollowsAcceptEncodingQuality() throws Exception {
+		byte[] plain = export("/export/films", null).getContentAsByteArray();
+
+		for (String acceptEncoding : List.of("gzip", "deflate, gzip;q=0.5", "*")) {
+			MockHttpServletResponse response = export("/export/films", acceptEncoding);
+			assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).as(acceptEncoding).isEqualTo("gzip");
+			assertThat(gunzip(response.getContentAsByteArray())).as(acceptEncoding).isEqualTo(plain);
+		}
+		for (String acceptEncoding : List.of("gzip;q=0", "identity", "gzip;q=0, *", "*;q=0")) {
+			MockHttpServletResponse response = export("/export/films", acceptEncoding);
+			assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).as(acceptEncoding).isNull();
+			assertThat(response.getContentAsByteArray()).as(acceptEncoding).isEqualTo(plain);
+		}
+	}
+
+	private MockHttpServletResponse export(String path, String acceptEncoding) throws Exception {
+		MvcResult result = mockMvc.perform(acceptEncoding == null ? get(path)
+						: get(path).header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		return mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+	}
+
+	private List<JsonNode> lines(byte[] body) throws IOException {
+		List<JsonNode> lines = new ArrayList<>();
+		for (String line : new String(body, StandardCharsets.UTF_8).split("\n")) {
+			lines.add(objectMapper.readTree(line));
+		}
+		return lines;
+	}
+
+	private static byte[] gunzip(byte[] body) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.DataVersions;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:film-controller",
+		"filmorate.films.stream-timeout=2m",
+		"logging.level.org.zalando.logbook=INFO"})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class FilmControllerTests {
+
+	// Больше одной страницы потокового списка.
+	private static final int FILMS = 1500;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private FilmStorage filmStorage;
+
+	@Autowired
+	private DataVersions dataVersions;
+
+	@SpyBean
+	private FilmService filmService;
+
+	@BeforeEach
+	void setUp() {
+		filmStorage.createAll(IntStream.rangeClosed(1, FILMS)
+				.mapToObj(i -> new Film(0, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 100,
+						new Mpa(1L, null, null), null))
+				.toList());
+	}
+
+	@Test
+	public void testStreamedListReadsAllPagesInIdOrder() throws Exception {
+		MvcResult result = mockMvc.perform(get("/films")).andReturn();
+		assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(2).toMillis());
+		byte[] body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		List<Long> ids = new ArrayList<>();
+		new ObjectMapper().readTree(body).forEach(film -> ids.add(film.get("id").asLong()));
+		assertThat(ids).hasSize(FILMS).isSorted().doesNotHaveDuplicates();
+
+		result = mockMvc.perform(get("/films?after=" + (FILMS - 2))).andReturn();
+		JsonNode tail = new ObjectMapper().readTree(mockMvc.perform(asyncDispatch(result))
+				.andReturn().getResponse().getContentAsByteArray());
+		assertThat(tail.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void testPageFollowsAfterAndLimit() throws Exception {
+		mockMvc.perform(get("/films?limit=2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].id").value(contains(1, 2)));
+		mockMvc.perform(get("/films?after=2&limit=3"))
+				.andExpect(jsonPath("$[*].id").value(contains(3, 4, 5)));
+		mockMvc.perform(get("/films?after=" + FILMS + "&limit=3"))
+				.andExpect(jsonPath("$.length()").value(0));
+		mockMvc.perform(get("/films?limit=0")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/films?limit=1001")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testFilmMutationChangesVersionOnce() throws Exception {
+		long version = dataVersions.getFilms();
+		mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"New\",\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":1}}"))
+				.andExpect(status().isOk());
+		assertThat(dataVersions.getFilms()).isEqualTo(version + 1);
+
+		mockMvc.perform(put("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"id\":1,\"name\":\"Updated\",\"releaseDate\":\"2000-01-01\",\"duration\":100,"
+								+ "\"mpa\":{\"id\":1}}"))
+				.andExpect(status().isOk());
+		assertThat(dataVersions.getFilms()).isEqualTo(version + 2);
+		mockMvc.perform(get("/films/1")).andExpect(jsonPath("$.name").value("Updated"));
+	}
+
+	@Test
+	public void testPopularCountIsBounded() throws Exception {
+		mockMvc.perform(get("/films/popular?count=1000")).andExpect(status().isOk());
+		mockMvc.perform(get("/films/popular?count=0")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/films/popular?count=-1")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/films/popular?count=10000000")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testErrorMidStreamDoesNotCompleteResponse() throws Exception {
+		doCallRealMethod()
+				.doThrow(new DataAccessResourceFailureException("База недоступна"))
+				.when(filmService).findPage(anyLong(), anyInt());
+
+		MvcResult result = mockMvc.perform(get("/films")).andReturn();
+		assertThatThrownBy(() -> mockMvc.perform(asyncDispatch(result)))
+				.hasRootCauseInstanceOf(DataAccessResourceFailureException.class);
+
+		String body = result.getResponse().getContentAsString();
+		assertThat(body).startsWith("[{").doesNotEndWith("]");
+	}
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Пачка из трёх записей: ошибка в пачке заставляет повторить её записи по одной.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:import-controller",
+		"filmorate.import.chunk-size=3",
+		"logging.level.org.zalando.logbook=INFO"})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ImportControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@SpyBean
+	private UserService userService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		importLines("/users/import", user(1), user(2), user(3));
+		for (int i = 1; i <= 3; i++) {
+			mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"name\":\"Film " + i + "\",\"releaseDate\":\"2000-01-01\",\"duration\":100,"
+									+ "\"mpa\":{\"id\":1}}"))
+					.andExpect(status().isOk());
+		}
+	}
+
+	@Test
+	public void testUserImportReportsInvalidAndDuplicateLines() throws Exception {
+		importLines("/users/import",
+						user(4),
+						"{\"email\":",
+						"{\"email\":\"not-an-email\",\"login\":\"bad\",\"birthday\":\"2000-01-01\"}",
+						user(5),
+						"",
+						user(1),
+						user(6))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.processed").value(6))
+				.andExpect(jsonPath("$.imported").value(3))
+				.andExpect(jsonPath("$.failed").value(3))
+				.andExpect(jsonPath("$.errors[*].line").value(contains(2, 3, 6)));
+
+		assertThat(jdbcTemplate.queryForList("SELECT login FROM users ORDER BY id", String.class))
+				.containsExactly("user1", "user2", "user3", "user4", "user5", "user6");
+	}
+
+	@Test
+	public void testLikeImportSkipsExistingLikesAndCountsEachOnce() throws Exception {
+		mockMvc.perform(put("/films/2/like/1")).andExpect(status().isOk());
+
+		importLines("/films/likes/import",
+						like(1, 1),
+						like(1, 2),
+						like(2, 1),
+						like(1, 1),
+						like(99, 1),
+						like(3, 99),
+						like(1, 3))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.processed").value(7))
+				.andExpect(jsonPath("$.imported").value(5))
+				.andExpect(jsonPath("$.failed").value(2))
+				.andExpect(jsonPath("$.errors[*].line").value(contains(5, 6)));
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes", Integer.class)).isEqualTo(4);
+		assertThat(jdbcTemplate.queryForList("SELECT like_count FROM films ORDER BY id", Long.class))
+				.containsExactly(3L, 1L, 0L);
+		mockMvc.perform(get("/films/popular?count=3"))
+				.andExpect(jsonPath("$[*].id").value(contains(1, 2, 3)));
+	}
+
+	@Test
+	public void testFriendshipImportRejectsSelfAndUnknownUsers() throws Exception {
+		mockMvc.perform(put("/users/1/friends/2")).andExpect(status().isOk());
+
+		importLines("/users/friends/import",
+						friendship(1, 2),
+						friendship(1, 1),
+						friendship(1, 3),
+						friendship(2, 99),
+						friendship(3, 1))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(3))
+				.andExpect(jsonPath("$.failed").value(2))
+				.andExpect(jsonPath("$.errors[*].line").value(contains(2, 4)));
+
+		assertThat(jdbcTemplate.queryForList("SELECT user_id || '-' || friend_id FROM user_friends " +
+				"ORDER BY user_id, friend_id", String.class)).containsExactly("1-2", "1-3", "3-1");
+		mockMvc.perform(get("/users/1/friends"))
+				.andExpect(jsonPath("$[*].id").value(contains(2, 3)));
+	}
+
+	@Test
+	public void testDatabaseErrorOnRetryIsReportedAsFailedLine() throws Exception {
+		doAnswer(invocation -> {
+			List<User> users = invocation.getArgument(0);
+			if (users.stream().anyMatch(user -> user.getLogin().equals("user5"))) {
+				throw new DataAccessResourceFailureException("Соединение с базой потеряно");
+			}
+			return invocation.callRealMethod();
+		}).when(userService).createAll(anyList());
+
+		importLines("/users/import", user(4), user(5), user(6), user(7))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(3))
+				.andExpect(jsonPath("$.failed").value(1))
+				.andExpect(jsonPath("$.errors[0].line").value(2));
+
+		assertThat(jdbcTemplate.queryForList("SELECT login FROM users WHERE id > 3 ORDER BY id", String.class))
+				.containsExactly("user4", "user6", "user7");
+	}
+
+	private ResultActions importLines(String path, String... lines) throws Exception {
+		return mockMvc.perform(post(path)
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.content(String.join("\n", lines)));
+	}
+
+	private static String user(int i) {
+		return "{\"email\":\"user" + i + "@example.com\",\"login\":\"user" + i + "\",\"birthday\":\"2000-01-01\"}";
+	}
+
+	private static String like(long filmId, long userId) {
+		return "{\"filmId\":" + filmId + ",\"userId\":" + userId + "}";
+	}
+
+	private static String friendship(long userId, long friendId) {
+		return "{\"userId\":" + userId + ",\"friendId\":" + friendId + "}";
+	}
+}
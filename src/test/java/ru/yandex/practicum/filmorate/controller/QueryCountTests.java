@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.yandex.practicum.filmorate.metrics.QueryCounter;
+import ru.yandex.practicum.filmorate.metrics.QueryStats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Число SQL-запросов на эндпоинт: рост этих чисел означает новый запрос в цикле.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:query-count",
+		"logging.level.org.zalando.logbook=INFO"})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class QueryCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		for (int i = 1; i <= 3; i++) {
+			perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"email\":\"user" + i + "@example.com\",\"login\":\"user" + i + "\",\"birthday\":\"2000-01-01\"}"));
+			perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+					.content("{\"name\":\"Film " + i + "\",\"releaseDate\":\"2000-01-01\",\"duration\":100,"
+							+ "\"mpa\":{\"id\":1},\"genres\":[{\"id\":1},{\"id\":2}]}"));
+		}
+		perform(put("/users/1/friends/3"));
+		perform(put("/users/2/friends/3"));
+		perform(put("/films/1/like/2"));
+		perform(put("/films/3/like/2"));
+		perform(put("/films/1/like/1"));
+	}
+
+	@Test
+	public void testFilmEndpoints() throws Exception {
+		assertThat(countQueries(get("/films/1"))).isEqualTo(1);
+		assertThat(countQueries(get("/films/1"))).isZero();
+		assertThat(countQueries(get("/films/popular?count=3"))).isEqualTo(1);
+		assertThat(countQueries(get("/films?limit=10"))).isEqualTo(1);
+		assertThat(countQueries(put("/films/2/like/1"))).isEqualTo(2);
+	}
+
+	// Совпадения ищутся в индексе, фильмы загружаются одним запросом, а повторный поиск берёт их из кэша.
+	@Test
+	public void testFilmSearch() throws Exception {
+		assertThat(countQueries(get("/films/search?q=film"))).isEqualTo(1);
+		assertThat(countQueries(get("/films/search?q=film"))).isZero();
+	}
+
+	// Страницы потокового списка читаются в асинхронной задаче и учитываются в статистике HTTP-запроса.
+	@Test
+	public void testStreamedListQueriesAreCounted() throws Exception {
+		try (QueryStats stats = QueryCounter.start()) {
+			MvcResult result = mockMvc.perform(get("/films")).andReturn();
+			mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+			assertThat(stats.getQueryCount()).isEqualTo(1);
+		}
+
+		DistributionSummary queries = meterRegistry.get("filmorate.request.queries")
+				.tag("method", "GET")
+				.tag("uri", "/films")
+				.summary();
+		assertThat(queries.count()).isEqualTo(1);
+		assertThat(queries.totalAmount()).isEqualTo(1);
+	}
+
+	@Test
+	public void testUserEndpoints() throws Exception {
+		assertThat(countQueries(get("/users/1"))).isEqualTo(1);
+		assertThat(countQueries(get("/users/1/friends"))).isEqualTo(1);
+		assertThat(countQueries(get("/users/1/friends/common/2"))).isEqualTo(1);
+		assertThat(countQueries(get("/users/1/recommendations"))).isEqualTo(1);
+		assertThat(countQueries(put("/users/1/friends/2"))).isEqualTo(1);
+	}
+
+	@Test
+	public void testConditionalGetSkipsDatabase() throws Exception {
+		String etag = mockMvc.perform(get("/films/popular?count=3"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotNull();
+
+		try (QueryStats stats = QueryCounter.start()) {
+			mockMvc.perform(get("/films/popular?count=3").header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.ETAG, etag));
+			assertThat(stats.getQueryCount()).isZero();
+		}
+
+		perform(put("/films/2/like/3"));
+		mockMvc.perform(get("/films/popular?count=3").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+		mockMvc.perform(get("/genres").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	private int countQueries(RequestBuilder request) throws Exception {
+		try (QueryStats stats = QueryCounter.start()) {
+			perform(request);
+			return stats.getQueryCount();
+		}
+	}
+
+	private void perform(RequestBuilder request) throws Exception {
+		mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+	}
+}
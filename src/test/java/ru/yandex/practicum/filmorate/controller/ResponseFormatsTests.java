@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:response-formats",
+		"logging.level.org.zalando.logbook=INFO"})
+@AutoConfigureMockMvc
+@DirtiesContext
+class ResponseFormatsTests {
+
+	private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Film\",\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":1}}"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	public void testBinaryFormatsKeepJsonShape() throws Exception {
+		byte[] cbor = mockMvc.perform(get("/films/1").accept(CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+		JsonNode film = new ObjectMapper(new CBORFactory()).readTree(cbor);
+		assertThat(film.get("name").asText()).isEqualTo("Film");
+		assertThat(film.get("releaseDate").asText()).isEqualTo("2000-01-01");
+
+		byte[] smile = mockMvc.perform(get("/mpa/1").accept(SMILE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(SMILE))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertThat(new ObjectMapper(new SmileFactory()).readTree(smile).get("id").asLong()).isEqualTo(1);
+	}
+
+	@Test
+	public void testStreamedFilmListFollowsAccept() throws Exception {
+		MvcResult result = mockMvc.perform(get("/films")
+						.header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+				.andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+		JsonNode films = new ObjectMapper(new CBORFactory()).readTree(body);
+		assertThat(films.size()).isPositive();
+		assertThat(films.get(0).get("name").asText()).isEqualTo("Film");
+
+		mockMvc.perform(get("/films").accept(MediaType.APPLICATION_XML))
+				.andExpect(status().isNotAcceptable());
+	}
+
+	@Test
+	public void testZeroQualityExcludesFormat() throws Exception {
+		MvcResult result = mockMvc.perform(get("/films").header(HttpHeaders.ACCEPT, "*/*, application/json;q=0"))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(CBOR));
+
+		mockMvc.perform(get("/films").header(HttpHeaders.ACCEPT, "application/*;q=0, application/json"))
+				.andExpect(status().isNotAcceptable());
+	}
+
+	@Test
+	public void testEtagDependsOnFormat() throws Exception {
+		String json = mockMvc.perform(get("/genres"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String cbor = mockMvc.perform(get("/genres").accept(CBOR))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(cbor).isNotEqualTo(json);
+		mockMvc.perform(get("/genres").accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/genres").accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+				.andExpect(status().isNotModified());
+	}
+}
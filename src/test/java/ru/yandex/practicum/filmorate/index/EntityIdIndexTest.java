@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EntityIdIndexTest {
+
+	private final UserStorage userStorage = mock(UserStorage.class);
+	private final FilmStorage filmStorage = mock(FilmStorage.class);
+	private EntityIdIndex index;
+
+	@BeforeEach
+	void setUp() {
+		doAnswer(invocation -> {
+			invocation.<LongConsumer>getArgument(0).accept(1);
+			return null;
+		}).when(userStorage).forEachId(any());
+		doAnswer(invocation -> {
+			invocation.<LongConsumer>getArgument(0).accept(10);
+			return null;
+		}).when(filmStorage).forEachId(any());
+		index = new EntityIdIndex(userStorage, filmStorage);
+		index.rebuild();
+	}
+
+	@Test
+	public void testIndexedIdsDoNotQueryStorage() {
+		assertThat(index.userExists(1)).isTrue();
+		assertThat(index.filmExists(10)).isTrue();
+		index.addUser(2);
+		assertThat(index.userExists(2)).isTrue();
+
+		verify(userStorage, never()).existsById(anyLong());
+		verify(filmStorage, never()).existsById(anyLong());
+	}
+
+	@Test
+	public void testMissFallsBackToStorage() {
+		// Строки вставлены в базу в обход сервисов.
+		when(userStorage.existsById(5L)).thenReturn(true);
+		when(filmStorage.existsById(50L)).thenReturn(true);
+
+		assertThat(index.userExists(5)).isTrue();
+		assertThat(index.userExists(5)).isTrue();
+		assertThat(index.filmExists(50)).isTrue();
+		assertThat(index.userExists(6)).isFalse();
+		assertThat(index.filmExists(60)).isFalse();
+
+		verify(userStorage, times(1)).existsById(5L);
+		verify(filmStorage, times(1)).existsById(50L);
+		// Записи целиком при промахе не читаются.
+		verify(userStorage, never()).findById(any());
+		verify(filmStorage, never()).findById(any());
+	}
+}
@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmPopularityIndexTest {
+
+	private FilmPopularityIndex index;
+
+	@BeforeEach
+	void setUp() {
+		FilmLikeStorage filmLikeStorage = mock(FilmLikeStorage.class);
+		when(filmLikeStorage.getLikeCountsByFilm()).thenReturn(Map.of(1L, 2L, 2L, 5L, 3L, 2L, 4L, 0L));
+		FilmStorage filmStorage = mock(FilmStorage.class);
+		List<Film> films = List.of(film(1, 1999, 1L, 2L), film(2, 2000, 2L), film(3, 1999, 1L), film(4, 2000));
+		doAnswer(invocation -> {
+			Consumer<Film> consumer = invocation.getArgument(1);
+			films.forEach(consumer);
+			return null;
+		}).when(filmStorage).streamAll(anyLong(), any());
+		index = new FilmPopularityIndex(filmLikeStorage, filmStorage);
+		index.rebuild();
+	}
+
+	@Test
+	public void testTopFilmsOrderedByLikesThenId() {
+		assertThat(index.getTopFilmIds(10)).containsExactly(2L, 1L, 3L, 4L);
+		assertThat(index.getTopFilmIds(2)).containsExactly(2L, 1L);
+		assertThat(index.getTopFilmIds(0)).isEmpty();
+	}
+
+	@Test
+	public void testRankingFollowsLikeChanges() {
+		index.addFilm(film(5, 2000));
+		index.incrementLikes(3L);
+		index.decrementLikes(2L);
+		index.decrementLikes(2L);
+		index.decrementLikes(4L);
+
+		assertThat(index.getLikes(3L)).isEqualTo(3L);
+		assertThat(index.getLikes(4L)).isZero();
+		assertThat(index.getTopFilmIds(10)).containsExactly(2L, 3L, 1L, 4L, 5L);
+		assertThat(index.getTopFilmIds(10, 1L, null)).containsExactly(3L, 1L);
+	}
+
+	@Test
+	public void testFilteredRankings() {
+		assertThat(index.getTopFilmIds(10, 1L, null)).containsExactly(1L, 3L);
+		assertThat(index.getTopFilmIds(10, 2L, null)).containsExactly(2L, 1L);
+		assertThat(index.getTopFilmIds(10, null, 2000)).containsExactly(2L, 4L);
+		assertThat(index.getTopFilmIds(10, 2L, 1999)).containsExactly(1L);
+		assertThat(index.getTopFilmIds(10, 3L, null)).isEmpty();
+		assertThat(index.getTopFilmIds(10, null, 1895)).isEmpty();
+	}
+
+	@Test
+	public void testFilmMovesBetweenRankingsOnUpdate() {
+		index.addFilm(film(1, 2000, 3L));
+
+		assertThat(index.getTopFilmIds(10, 1L, null)).containsExactly(3L);
+		assertThat(index.getTopFilmIds(10, 2L, 1999)).isEmpty();
+		assertThat(index.getTopFilmIds(10, 3L, 2000)).containsExactly(1L);
+		assertThat(index.getTopFilmIds(10, null, 2000)).containsExactly(2L, 1L, 4L);
+		assertThat(index.getLikes(1L)).isEqualTo(2L);
+	}
+
+	private static Film film(long id, int year, Long... genreIds) {
+		return new Film(id, "Film " + id, "", LocalDate.of(year, 1, 1), 100, null,
+				Arrays.stream(genreIds).map(genreId -> new Genre(genreId, null))
+						.collect(Collectors.toCollection(LinkedHashSet::new)));
+	}
+}
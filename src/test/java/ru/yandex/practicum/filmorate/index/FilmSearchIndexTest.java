@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmSearchIndexTest {
+
+	private FilmSearchIndex index;
+	private FilmPopularityIndex popularityIndex;
+
+	@BeforeEach
+	void setUp() {
+		List<Film> films = List.of(
+				film(1, "Матрица", "Хакер узнаёт правду о мире"),
+				film(2, "Матрица: Перезагрузка", "Продолжение истории о Нео"),
+				film(3, "Хакеры", "Подростки взламывают корпорацию"),
+				film(4, "Мир Юрского периода", "Парк развлечений с динозаврами"),
+				film(5, "Ёлки", "Новогодняя комедия про матрицу желаний"));
+		FilmStorage filmStorage = mock(FilmStorage.class);
+		doAnswer(invocation -> {
+			Consumer<Film> consumer = invocation.getArgument(1);
+			films.forEach(consumer);
+			return null;
+		}).when(filmStorage).streamAll(anyLong(), any());
+		popularityIndex = mock(FilmPopularityIndex.class);
+		index = new FilmSearchIndex(filmStorage, popularityIndex, 0.2);
+		index.rebuild();
+	}
+
+	@Test
+	public void testExactPrefixAndTypoMatches() {
+		assertThat(index.search("хакер правду", 10)).containsExactly(1L);
+		// Последнее слово запроса - префикс: "хакер" находит и "Хакеры", совпадение в названии выше.
+		assertThat(index.search("хакер", 10)).containsExactly(3L, 1L);
+		assertThat(index.search("хак", 10)).containsExactly(3L, 1L);
+		assertThat(index.search("ёлки", 10)).containsExactly(5L);
+		assertThat(index.search("динозврами", 10)).containsExactly(4L);
+		assertThat(index.search("парк дниозаврами", 10)).containsExactly(4L);
+		assertThat(index.search("матрица нео", 10)).containsExactly(2L);
+		assertThat(index.search("матрица титаник", 10)).isEmpty();
+		assertThat(index.search(" , ", 10)).isEmpty();
+	}
+
+	@Test
+	public void testRankingByFieldAndLikes() {
+		// Совпадение в названии важнее, чем в описании; префикс "матриц" совпадает и с "матрицу".
+		assertThat(index.search("матриц", 10)).containsExactly(1L, 2L, 5L);
+		assertThat(index.search("матриц", 2)).containsExactly(1L, 2L);
+
+		when(popularityIndex.getLikes(2L)).thenReturn(100L);
+		assertThat(index.search("матриц", 10)).containsExactly(2L, 1L, 5L);
+	}
+
+	@Test
+	public void testUpdateReplacesTerms() {
+		index.index(film(3, "Хакеры 2", "Продолжение"));
+		index.index(film(6, "Новый фильм", "Про хакера"));
+
+		assertThat(index.search("корпорацию", 10)).isEmpty();
+		assertThat(index.search("продолжение", 10)).containsExactly(2L, 3L);
+		assertThat(index.search("хакер о", 10)).containsExactly(1L);
+		assertThat(index.search("про хакера", 10)).containsExactly(6L);
+	}
+
+	@Test
+	public void testDistanceCountsTranspositionAsOneEdit() {
+		assertThat(FilmSearchIndex.distance("матрица", "матрица", 2)).isZero();
+		assertThat(FilmSearchIndex.distance("матрица", "мтарица", 2)).isEqualTo(1);
+		assertThat(FilmSearchIndex.distance("матрица", "матрицы", 2)).isEqualTo(1);
+		assertThat(FilmSearchIndex.distance("матрица", "мтариац", 1)).isEqualTo(2);
+	}
+
+	private static Film film(long id, String name, String description) {
+		return new Film(id, name, description, LocalDate.of(2000, 1, 1), 100, null, new LinkedHashSet<>());
+	}
+}
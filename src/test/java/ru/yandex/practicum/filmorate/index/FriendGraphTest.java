@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.UserFriendStorage;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FriendGraphTest {
+
+	private FriendGraph graph;
+
+	@BeforeEach
+	void setUp() {
+		UserFriendStorage userFriendStorage = mock(UserFriendStorage.class);
+		doAnswer(invocation -> {
+			UserFriendStorage.FriendshipConsumer consumer = invocation.getArgument(0);
+			consumer.accept(1, 2);
+			consumer.accept(1, 3);
+			consumer.accept(2, 4);
+			consumer.accept(2, 5);
+			consumer.accept(2, 1);
+			consumer.accept(3, 5);
+			consumer.accept(3, 2);
+			consumer.accept(3, 6);
+			return null;
+		}).when(userFriendStorage).forEachFriendship(any());
+		graph = new FriendGraph(userFriendStorage, 100, Duration.ofSeconds(1));
+		graph.rebuild();
+	}
+
+	@Test
+	public void testSuggestionsRankedByMutualFriendsThenId() {
+		assertThat(graph.getFriendSuggestionIds(1, 10)).containsExactly(5L, 4L, 6L);
+		assertThat(graph.getFriendSuggestionIds(1, 1)).containsExactly(5L);
+		assertThat(graph.getFriendSuggestionIds(7, 10)).isEmpty();
+	}
+
+	@Test
+	public void testSuggestionsExcludeExistingFriends() {
+		graph.addFriend(1, 5);
+
+		assertThat(graph.getFriendSuggestionIds(1, 10)).containsExactly(4L, 6L);
+	}
+
+	@Test
+	public void testCommonFriendsIntersectSortedLists() {
+		assertThat(graph.getCommonFriendIds(1, 3)).containsExactly(2L);
+		assertThat(graph.getCommonFriendIds(2, 3)).containsExactly(5L);
+		assertThat(graph.getCommonFriendIds(3, 2)).containsExactly(5L);
+		assertThat(graph.getCommonFriendIds(1, 7)).isEmpty();
+		assertThat(graph.getCommonFriendIds(7, 8)).isEmpty();
+	}
+
+	@Test
+	public void testAddFriendKeepsListSortedAndIgnoresDuplicates() {
+		graph.addFriend(1, 0);
+		graph.addFriend(1, 10);
+		graph.addFriend(1, 3);
+		graph.addFriend(7, 1);
+
+		assertThat(graph.getFriendIds(1)).containsExactly(0L, 2L, 3L, 10L);
+		assertThat(graph.getFriendIds(7)).containsExactly(1L);
+		assertThat(graph.hasFriend(1, 10)).isTrue();
+		assertThat(graph.hasFriend(10, 1)).isFalse();
+		assertThat(graph.getCommonFriendIds(1, 3)).containsExactly(2L);
+	}
+
+	@Test
+	public void testRemoveFriend() {
+		graph.removeFriend(2, 4);
+		graph.removeFriend(2, 99);
+		graph.removeFriend(7, 1);
+		assertThat(graph.getFriendIds(2)).containsExactly(1L, 5L);
+
+		graph.removeFriend(1, 2);
+		graph.removeFriend(1, 3);
+		assertThat(graph.getFriendIds(1)).isEmpty();
+		assertThat(graph.hasFriend(1, 2)).isFalse();
+		assertThat(graph.getCommonFriendIds(1, 3)).isEmpty();
+
+		graph.addFriend(1, 3);
+		assertThat(graph.getFriendIds(1)).containsExactly(3L);
+	}
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.FilmLikeStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class LikeMatrixTest {
+
+	private LikeMatrix matrix;
+
+	@BeforeEach
+	void setUp() {
+		FilmLikeStorage filmLikeStorage = mock(FilmLikeStorage.class);
+		doAnswer(invocation -> {
+			FilmLikeStorage.LikeConsumer consumer = invocation.getArgument(0);
+			consumer.accept(1, 1);
+			consumer.accept(2, 1);
+			consumer.accept(1, 2);
+			consumer.accept(2, 2);
+			consumer.accept(3, 2);
+			consumer.accept(1, 3);
+			consumer.accept(200, 3);
+			consumer.accept(4, 4);
+			return null;
+		}).when(filmLikeStorage).forEachLike(any());
+		matrix = new LikeMatrix(filmLikeStorage, 10, 0);
+		matrix.rebuild();
+	}
+
+	@AfterEach
+	void tearDown() {
+		matrix.shutdown();
+	}
+
+	@Test
+	public void testRecommendsFilmsOfMostSimilarUsers() {
+		// Сходство с пользователем 2 - 2/3, с пользователем 3 - 1/3, с пользователем 4 - 0.
+		assertThat(matrix.getRecommendedFilmIds(1, 10)).containsExactly(3L, 200L);
+		assertThat(matrix.getRecommendedFilmIds(1, 1)).containsExactly(3L);
+		assertThat(matrix.getRecommendedFilmIds(5, 10)).isEmpty();
+	}
+
+	@Test
+	public void testRecommendationsFollowLikeChanges() {
+		matrix.addLike(3, 1);
+		assertThat(matrix.getRecommendedFilmIds(1, 10)).containsExactly(200L);
+
+		matrix.removeLike(1, 3);
+		matrix.removeLike(200, 3);
+		assertThat(matrix.getRecommendedFilmIds(1, 10)).isEmpty();
+	}
+
+	@Test
+	public void testLargeFilmIdsStaySparse() {
+		long farFilmId = 10_000_000_000L;
+		matrix.addLike(farFilmId, 2);
+		assertThat(matrix.hasLike(farFilmId, 2)).isTrue();
+		assertThat(matrix.getRecommendedFilmIds(1, 10)).containsExactly(3L, farFilmId, 200L);
+
+		matrix.removeLike(farFilmId, 2);
+		assertThat(matrix.hasLike(farFilmId, 2)).isFalse();
+		assertThat(matrix.getRecommendedFilmIds(1, 10)).containsExactly(3L, 200L);
+	}
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongBitSetTest {
+
+	@Test
+	public void testWordBoundariesAndGrowth() {
+		LongBitSet ids = new LongBitSet();
+		long[] added = {0, 63, 64, 127, 128, 64L * 64 - 1, 64L * 64, 1_000_000};
+		for (long id : added) {
+			ids.add(id);
+		}
+
+		for (long id : added) {
+			assertThat(ids.contains(id)).as("id %d", id).isTrue();
+		}
+		for (long id : new long[]{1, 62, 65, 126, 129, 64L * 64 + 1, 999_999, 1_000_001, 64_000_000}) {
+			assertThat(ids.contains(id)).as("id %d", id).isFalse();
+		}
+		assertThat(ids.contains(-1)).isFalse();
+		assertThatThrownBy(() -> ids.add(-1)).isInstanceOf(IllegalArgumentException.class);
+
+		ids.clear();
+		assertThat(ids.contains(0)).isFalse();
+		assertThat(ids.contains(1_000_000)).isFalse();
+	}
+
+	@Test
+	public void testConcurrentAddAndContains() throws Exception {
+		LongBitSet ids = new LongBitSet();
+		int writers = 4;
+		int perWriter = 50_000;
+		ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+		try {
+			AtomicBoolean lost = new AtomicBoolean();
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < writers; w++) {
+				int writer = w;
+				// Потоки пишут чередующиеся id: соседние биты одного слова меняют разные потоки, массив растёт.
+				futures.add(executor.submit(() -> {
+					for (long i = 0; i < perWriter; i++) {
+						long id = i * writers + writer;
+						ids.add(id);
+						if (!ids.contains(id)) {
+							lost.set(true);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			assertThat(lost).isFalse();
+		} finally {
+			executor.shutdown();
+		}
+
+		for (long id = 0; id < (long) writers * perWriter; id++) {
+			if (!ids.contains(id)) {
+				throw new AssertionError("Потерян id " + id);
+			}
+		}
+	}
+}
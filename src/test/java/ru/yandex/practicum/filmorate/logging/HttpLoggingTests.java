@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.zalando.logbook.Correlation;
+import org.zalando.logbook.HttpLogWriter;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.Precorrelation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Журнал пишется в память вместо логгера, чтобы проверять, какие тела в него попали.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:http-logging",
+		"filmorate.logging.http.body-excluded-paths=/genres,/users/*/friends/**",
+		"filmorate.logging.http.body-min-status=400"})
+@AutoConfigureMockMvc
+@DirtiesContext
+class HttpLoggingTests {
+
+	private static final List<String> requests = new CopyOnWriteArrayList<>();
+	private static final List<String> responses = new CopyOnWriteArrayList<>();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		requests.clear();
+		responses.clear();
+	}
+
+	@Test
+	public void testExcludedPathIsLoggedWithoutBodies() throws Exception {
+		mockMvc.perform(get("/genres")).andExpect(status().isOk());
+		mockMvc.perform(get("/users/1/friends/common/2")).andExpect(status().isNotFound());
+
+		assertThat(responses).hasSize(2).allSatisfy(response -> assertThat(json(response).has("body")).isFalse());
+	}
+
+	@Test
+	public void testBodyIsLoggedOnlyForErrorStatuses() throws Exception {
+		mockMvc.perform(get("/mpa/1")).andExpect(status().isOk());
+		mockMvc.perform(get("/films/999")).andExpect(status().isNotFound());
+		mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"\"}"))
+				.andExpect(status().isBadRequest());
+
+		assertThat(responses).hasSize(3);
+		assertThat(requests).hasSize(3);
+		assertThat(json(responses.get(0)).get("status").asInt()).isEqualTo(200);
+		assertThat(json(responses.get(0)).has("body")).isFalse();
+		assertThat(json(responses.get(1)).get("body").get("error").asText()).contains("999");
+		assertThat(json(responses.get(2)).has("body")).isTrue();
+		assertThat(json(requests.get(2)).get("body").get("name").asText()).isEmpty();
+	}
+
+	@Test
+	public void testSampleRateBoundsAreExact() {
+		HttpRequest request = mock(HttpRequest.class);
+		for (int i = 0; i < 100; i++) {
+			assertThat(new SampledRequestCondition(1.0).test(request)).isTrue();
+			assertThat(new SampledRequestCondition(0.0).test(request)).isFalse();
+		}
+	}
+
+	private JsonNode json(String message) throws Exception {
+		return objectMapper.readTree(message);
+	}
+
+	@TestConfiguration
+	static class CapturingWriterConfiguration {
+
+		@Bean
+		HttpLogWriter httpLogWriter() {
+			return new HttpLogWriter() {
+				@Override
+				public boolean isActive() {
+					return true;
+				}
+
+				@Override
+				public void write(Precorrelation precorrelation, String request) {
+					requests.add(request);
+				}
+
+				@Override
+				public void write(Correlation correlation, String response) {
+					responses.add(response);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.CachingFilmStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmCacheMetricsTest {
+
+	@Test
+	public void testCountersReadCurrentCacheStats() {
+		CachingFilmStorage cachingFilmStorage = mock(CachingFilmStorage.class);
+		when(cachingFilmStorage.getStats())
+				.thenReturn(CacheStats.of(3, 1, 1, 0, 0, 0, 0))
+				.thenReturn(CacheStats.of(5, 2, 2, 1, 0, 4, 0));
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		new FilmCacheMetrics(cachingFilmStorage).bindTo(registry);
+
+		// Значения не копируются при регистрации, а читаются при каждом снятии.
+		assertThat(registry.get("filmorate.film.cache.requests").tag("result", "hit").functionCounter().count())
+				.isEqualTo(3);
+		assertThat(registry.get("filmorate.film.cache.requests").tag("result", "miss").functionCounter().count())
+				.isEqualTo(2);
+		assertThat(registry.get("filmorate.film.cache.evictions").functionCounter().count()).isEqualTo(4);
+		assertThat(registry.get("filmorate.film.cache.load.failures").functionCounter().count()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StorageMetricsAspectTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private GenreStorage storage;
+
+	@BeforeEach
+	void setUp() {
+		AspectJProxyFactory factory = new AspectJProxyFactory(new StubGenreStorage());
+		factory.addAspect(new StorageMetricsAspect(registry));
+		storage = factory.getProxy();
+	}
+
+	@Test
+	public void testCallsAreTimedAndRowsCounted() {
+		storage.findAll();
+		storage.findAll();
+		storage.findById(1L);
+
+		Timer findAll = registry.get("filmorate.storage")
+				.tag("storage", "StubGenreStorage").tag("method", "findAll").timer();
+		assertThat(findAll.count()).isEqualTo(2);
+		DistributionSummary rows = registry.get("filmorate.storage.rows")
+				.tag("storage", "StubGenreStorage").tag("method", "findAll").summary();
+		assertThat(rows.count()).isEqualTo(2);
+		assertThat(rows.totalAmount()).isEqualTo(6);
+		assertThat(registry.get("filmorate.storage.rows")
+				.tag("storage", "StubGenreStorage").tag("method", "findById").summary().totalAmount()).isEqualTo(1);
+		assertThat(registry.find("filmorate.storage.errors").counter()).isNull();
+	}
+
+	@Test
+	public void testFailedCallIsTimedAndCountedAsError() {
+		assertThatThrownBy(() -> storage.findById(99L)).isInstanceOf(IllegalStateException.class);
+
+		assertThat(registry.get("filmorate.storage")
+				.tag("storage", "StubGenreStorage").tag("method", "findById").timer().count()).isEqualTo(1);
+		assertThat(registry.get("filmorate.storage.errors")
+				.tag("storage", "StubGenreStorage")
+				.tag("method", "findById")
+				.tag("exception", "IllegalStateException")
+				.counter().count()).isEqualTo(1);
+		assertThat(registry.find("filmorate.storage.rows").summary()).isNull();
+	}
+
+	private static class StubGenreStorage implements GenreStorage {
+
+		@Override
+		public Optional<Genre> findById(Long id) {
+			if (id > 10) {
+				throw new IllegalStateException("База недоступна");
+			}
+			return Optional.of(new Genre(id, "Жанр"));
+		}
+
+		@Override
+		public Collection<Genre> findAll() {
+			return List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма"), new Genre(3L, "Мультфильм"));
+		}
+	}
+}
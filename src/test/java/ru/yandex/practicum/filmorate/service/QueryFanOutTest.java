@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryFanOutTest {
+
+	private final List<Long> ids = LongStream.rangeClosed(1, 1000).boxed().toList();
+
+	@Test
+	void testFindByIdsSplitsListAndKeepsOrder() {
+		QueryFanOut fanOut = new QueryFanOut(true, 100, 4);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		List<String> result = fanOut.findByIds(ids, chunk -> {
+			threads.add(Thread.currentThread());
+			assertThat(chunk).hasSize(250);
+			return chunk.stream().map(String::valueOf).toList();
+		});
+
+		assertThat(result).hasSize(1000);
+		assertThat(result.get(0)).isEqualTo("1");
+		assertThat(result.get(999)).isEqualTo("1000");
+		assertThat(threads).hasSize(4).allMatch(Thread::isVirtual);
+	}
+
+	@Test
+	void testFindByIdsRunsInCallerThreadWithoutVirtualThreads() {
+		QueryFanOut fanOut = new QueryFanOut(false, 100, 4);
+		List<Long> result = fanOut.findByIds(ids, chunk -> {
+			assertThat(Thread.currentThread().isVirtual()).isFalse();
+			return chunk;
+		});
+
+		assertThat(result).isEqualTo(ids);
+	}
+
+	@Test
+	void testFindByIdsRethrowsChunkFailure() {
+		QueryFanOut fanOut = new QueryFanOut(true, 100, 4);
+
+		assertThatThrownBy(() -> fanOut.findByIds(ids, chunk -> {
+			if (chunk.contains(500L)) {
+				throw new IllegalStateException("Ошибка чтения");
+			}
+			return chunk;
+		})).isInstanceOf(IllegalStateException.class).hasMessage("Ошибка чтения");
+	}
+}
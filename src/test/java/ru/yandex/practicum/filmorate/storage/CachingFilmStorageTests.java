@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@Import({FilmDbStorage.class, FilmLikeDbStorage.class, ReferenceDataCache.class, DataVersions.class,
+		GenreDbStorage.class, MpaDbStorage.class, CachingFilmStorageTests.CacheConfiguration.class})
+class CachingFilmStorageTests {
+
+	@Autowired
+	private FilmDbStorage filmDbStorage;
+
+	@Autowired
+	private CachingFilmStorage filmStorage;
+
+	@Autowired
+	private ReferenceDataCache referenceDataCache;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Film film;
+
+	@BeforeEach
+	void setUp() {
+		film = filmStorage.create(film("Original"));
+	}
+
+	@Test
+	public void testRepeatedReadsHitCache() {
+		assertThat(filmStorage.findById(film.getId())).isPresent();
+		assertThat(filmStorage.findByIds(List.of(film.getId()))).hasSize(1);
+		assertThat(filmStorage.getStats().hitCount()).isEqualTo(1);
+		assertThat(filmStorage.getStats().missCount()).isEqualTo(1);
+
+		// Изменение в обход кэша не видно до сброса записи.
+		jdbcTemplate.update("UPDATE films SET name = 'Changed' WHERE id = ?", film.getId());
+		assertThat(filmStorage.findById(film.getId())).get().extracting(Film::getName).isEqualTo("Original");
+		assertThat(filmStorage.findByIds(List.of(film.getId(), Long.MAX_VALUE))).hasSize(1);
+	}
+
+	@Test
+	public void testMutatingReadFilmDoesNotChangeCache() {
+		Film byId = filmStorage.findById(film.getId()).orElseThrow();
+		byId.setName("Changed");
+		byId.getMpa().setName("Changed");
+		byId.getGenres().add(new Genre(1L, "Комедия"));
+
+		Film byIds = filmStorage.findByIds(List.of(film.getId())).get(0);
+		assertThat(byIds.getName()).isEqualTo("Original");
+		assertThat(byIds.getMpa().getName()).isEqualTo("G");
+		assertThat(byIds.getGenres()).isEmpty();
+		byIds.setName("Changed again");
+
+		assertThat(filmStorage.findById(film.getId())).get().extracting(Film::getName).isEqualTo("Original");
+	}
+
+	@Test
+	public void testUpdateInvalidatesCachedFilm() {
+		filmStorage.findByIds(List.of(film.getId()));
+
+		film.setName("Updated");
+		filmStorage.update(film);
+
+		assertThat(filmStorage.findByIds(List.of(film.getId())))
+				.singleElement().extracting(Film::getName).isEqualTo("Updated");
+		assertThat(filmStorage.findById(film.getId())).get().extracting(Film::getName).isEqualTo("Updated");
+	}
+
+	@Test
+	public void testUpdateDuringBatchLoadIsNotCached() {
+		FilmDbStorage delegate = spy(filmDbStorage);
+		CachingFilmStorage racingStorage = new CachingFilmStorage(delegate, 100, Duration.ofMinutes(10));
+		// Обновление фиксируется после того, как пакетное чтение уже получило старую версию фильма.
+		doAnswer(invocation -> {
+			Object loaded = invocation.callRealMethod();
+			Film updated = filmDbStorage.findById(film.getId()).orElseThrow();
+			updated.setName("Updated");
+			racingStorage.update(updated);
+			return loaded;
+		}).when(delegate).findByIds(any());
+
+		assertThat(racingStorage.findByIds(List.of(film.getId())))
+				.singleElement().extracting(Film::getName).isEqualTo("Original");
+		assertThat(racingStorage.findById(film.getId())).get().extracting(Film::getName).isEqualTo("Updated");
+	}
+
+	@Test
+	public void testReferenceDataRefreshClearsCache() {
+		filmStorage.findByIds(List.of(film.getId()));
+		jdbcTemplate.update("UPDATE mpa_ratings SET name = 'G+' WHERE id = 1");
+
+		referenceDataCache.refresh();
+
+		assertThat(filmStorage.findById(film.getId())).get()
+				.extracting(Film::getMpa).extracting(Mpa::getName).isEqualTo("G+");
+	}
+
+	@TestConfiguration
+	static class CacheConfiguration {
+
+		@Bean
+		CachingFilmStorage cachingFilmStorage(FilmDbStorage filmDbStorage) {
+			return new CachingFilmStorage(filmDbStorage, 100, Duration.ofMinutes(10));
+		}
+	}
+
+	private static Film film(String name) {
+		return new Film(0, name, "Description", LocalDate.of(2000, 1, 1), 100, new Mpa(1L, null, null), Set.of());
+	}
+}
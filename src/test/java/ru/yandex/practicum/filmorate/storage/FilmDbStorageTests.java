@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Import({FilmDbStorage.class, FilmLikeDbStorage.class, ReferenceDataCache.class, DataVersions.class,
+		GenreDbStorage.class, MpaDbStorage.class})
+class FilmDbStorageTests {
+
+	private final FilmDbStorage filmStorage;
+	private final FilmLikeDbStorage filmLikeStorage;
+	private final JdbcTemplate jdbcTemplate;
+
+	private Film first;
+	private Film second;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("INSERT INTO users (id, email, login, name, birthday) " +
+				"VALUES (1, 'test@example.com', 'test_user', 'Test User', '2000-01-01')");
+
+		first = filmStorage.create(film("First", 1L, Set.of(new Genre(2L, null), new Genre(1L, null))));
+		second = filmStorage.create(film("Second", 3L, Set.of()));
+
+		filmLikeStorage.addLike(second.getId(), 1);
+	}
+
+	@Test
+	public void testExistsById() {
+		assertThat(filmStorage.existsById(first.getId())).isTrue();
+		assertThat(filmStorage.existsById(second.getId() + 1)).isFalse();
+	}
+
+	@Test
+	public void testFindByIdLoadsMpaAndGenres() {
+		assertThat(filmStorage.findById(first.getId()))
+				.isPresent()
+				.hasValueSatisfying(film -> {
+					assertThat(film).hasFieldOrPropertyWithValue("name", "First");
+					assertThat(film.getMpa()).hasFieldOrPropertyWithValue("name", "G");
+					assertThat(film.getGenres()).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+				});
+		assertThat(filmStorage.findById(-1L)).isEmpty();
+	}
+
+	@Test
+	public void testPopularFilmsAreFullyHydrated() {
+		assertThat(filmStorage.getPopularFilms(10))
+				.extracting(Film::getId)
+				.containsExactly(second.getId(), first.getId());
+		assertThat(filmStorage.getPopularFilms(10))
+				.allSatisfy(film -> {
+					assertThat(film.getMpa().getName()).isNotNull();
+					assertThat(film.getGenres()).isNotNull();
+				});
+	}
+
+	@Test
+	public void testLikeCountFollowsLikeChanges() {
+		jdbcTemplate.update("INSERT INTO users (id, email, login, name, birthday) " +
+				"VALUES (2, 'other@example.com', 'other_user', 'Other User', '2000-01-01')");
+		filmLikeStorage.addLikes(List.of(new FilmLike(first.getId(), 1), new FilmLike(first.getId(), 2),
+				new FilmLike(second.getId(), 1)));
+
+		assertThat(filmLikeStorage.getLikeCountsByFilm())
+				.containsEntry(first.getId(), 2L)
+				.containsEntry(second.getId(), 1L);
+		assertThat(filmStorage.getPopularFilms(1)).extracting(Film::getId).containsExactly(first.getId());
+		// Повторная пачка вставляет только новые лайки и возвращает именно их.
+		assertThat(filmLikeStorage.addLikes(List.of(new FilmLike(first.getId(), 1), new FilmLike(second.getId(), 2))))
+				.containsExactly(new FilmLike(second.getId(), 2));
+		filmLikeStorage.removeLike(second.getId(), 2);
+
+		filmLikeStorage.removeLikes(List.of(new FilmLike(first.getId(), 1), new FilmLike(first.getId(), 1)));
+		assertThat(filmLikeStorage.addLike(second.getId(), 1)).isFalse();
+		assertThat(filmLikeStorage.removeLike(second.getId(), 1)).isTrue();
+		assertThat(filmLikeStorage.removeLike(second.getId(), 1)).isFalse();
+
+		assertThat(filmLikeStorage.getLikeCountsByFilm())
+				.containsEntry(first.getId(), 1L)
+				.containsEntry(second.getId(), 0L);
+	}
+
+	@Test
+	public void testPagesAndStreamFollowIdOrder() {
+		assertThat(filmStorage.findPage(0, 1)).extracting(Film::getId).containsExactly(first.getId());
+		assertThat(filmStorage.findPage(first.getId(), 10)).extracting(Film::getId).containsExactly(second.getId());
+
+		List<Film> streamed = new ArrayList<>();
+		filmStorage.streamAll(0, streamed::add);
+		assertThat(streamed).extracting(Film::getId).containsExactly(first.getId(), second.getId());
+		assertThat(filmStorage.findByIds(List.of(second.getId(), first.getId())))
+				.extracting(Film::getId)
+				.containsExactly(second.getId(), first.getId());
+	}
+
+	@Test
+	public void testCreateAllAssignsIdsAndStoresGenres() {
+		List<Film> created = filmStorage.createAll(List.of(
+				film("Third", 2L, Set.of(new Genre(3L, null))),
+				film("Fourth", 4L, Set.of())));
+
+		assertThat(created).extracting(Film::getId).doesNotContain(0L).doesNotHaveDuplicates();
+		assertThat(filmStorage.findByIds(created.stream().map(Film::getId).toList()))
+				.satisfiesExactly(
+						film -> assertThat(film.getGenres()).extracting(Genre::getName).containsExactly("Мультфильм"),
+						film -> assertThat(film.getMpa()).hasFieldOrPropertyWithValue("name", "R"));
+	}
+
+	private Film film(String name, long mpaId, Set<Genre> genres) {
+		return new Film(0, name, "Description", LocalDate.of(2000, 1, 1), 100,
+				new Mpa(mpaId, null, null), genres);
+	}
+}
@@ -0,0 +1,168 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "logging.level.org.zalando.logbook=INFO")
+@ActiveProfiles("in-memory")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class InMemoryStorageTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private FilmStorage filmStorage;
+
+	@Autowired
+	private FilmLikeStorage filmLikeStorage;
+
+	@Test
+	public void testApplicationRunsWithoutDatabase() throws Exception {
+		assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
+
+		for (int i = 1; i <= 3; i++) {
+			mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"email\":\"user" + i + "@example.com\",\"login\":\"user" + i + "\",\"birthday\":\"2000-01-01\"}"))
+					.andExpect(status().isOk());
+		}
+		mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"First\",\"releaseDate\":\"1999-01-01\",\"duration\":100,"
+								+ "\"mpa\":{\"id\":3},\"genres\":[{\"id\":2},{\"id\":1}]}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.mpa.name").value("PG-13"))
+				.andExpect(jsonPath("$.genres[0].name").value("Комедия"));
+		mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Second\",\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":1}}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/films").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\":\"Third\",\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":9}}"))
+				.andExpect(status().is4xxClientError());
+
+		mockMvc.perform(put("/films/2/like/1")).andExpect(status().isOk());
+		mockMvc.perform(put("/films/2/like/2")).andExpect(status().isOk());
+		mockMvc.perform(put("/films/1/like/3")).andExpect(status().isOk());
+		mockMvc.perform(put("/users/1/friends/3")).andExpect(status().isOk());
+		mockMvc.perform(put("/users/2/friends/3")).andExpect(status().isOk());
+
+		mockMvc.perform(get("/films/popular?count=10"))
+				.andExpect(jsonPath("$[*].id").value(contains(2, 1)));
+		mockMvc.perform(get("/films/popular?count=10&genreId=1"))
+				.andExpect(jsonPath("$[*].id").value(contains(1)));
+		mockMvc.perform(get("/users/1/friends/common/2"))
+				.andExpect(jsonPath("$[*].id").value(contains(3)));
+		mockMvc.perform(get("/genres")).andExpect(jsonPath("$.length()").value(6));
+		mockMvc.perform(get("/mpa/5")).andExpect(jsonPath("$.name").value("NC-17"));
+	}
+
+	@Test
+	public void testConcurrentWritesKeepIdsAndLikesConsistent() throws Exception {
+		int threads = 8;
+		int filmsPerThread = 250;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<Long>>> created = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				created.add(executor.submit(() -> {
+					List<Long> ids = new ArrayList<>();
+					for (int i = 0; i < filmsPerThread; i++) {
+						ids.add(filmStorage.create(film()).getId());
+					}
+					return ids;
+				}));
+			}
+			Set<Long> ids = new HashSet<>();
+			for (Future<List<Long>> future : created) {
+				ids.addAll(future.get());
+			}
+			assertThat(ids).hasSize(threads * filmsPerThread);
+			assertThat(filmStorage.findPage(0, Integer.MAX_VALUE)).hasSize(threads * filmsPerThread);
+
+			// Каждый поток ставит и снимает лайки одним и тем же фильмам, остаются лайки с чётными user_id.
+			List<Future<?>> likes = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				long userId = t + 1;
+				likes.add(executor.submit(() -> {
+					for (long filmId = 1; filmId <= 100; filmId++) {
+						filmLikeStorage.addLike(filmId, userId);
+						if (userId % 2 == 1) {
+							filmLikeStorage.removeLike(filmId, userId);
+						}
+					}
+				}));
+			}
+			for (Future<?> future : likes) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(filmLikeStorage.getLikeCountsByFilm()).hasSize(100).allSatisfy((filmId, count) ->
+				assertThat(count).isEqualTo(threads / 2));
+		List<FilmLike> byUser = new ArrayList<>();
+		filmLikeStorage.forEachLike((filmId, userId) -> byUser.add(new FilmLike(filmId, userId)));
+		assertThat(byUser).hasSize(100 * threads / 2).allSatisfy(like ->
+				assertThat(like.getUserId() % 2).isZero());
+		assertThat(filmLikeStorage.findPage(new FilmLike(1, 4), 3)).containsExactly(
+				new FilmLike(1, 6), new FilmLike(1, 8), new FilmLike(2, 2));
+	}
+
+	@Test
+	public void testReadsReturnIsolatedCopies() {
+		Film film = filmStorage.create(new Film(0, "Film", "Description", LocalDate.of(2000, 1, 1), 100,
+				new Mpa(1, null, null), Set.of(new Genre(1L, null))));
+
+		// Изменения прочитанного фильма, его рейтинга и жанров не попадают в хранилище.
+		Film read = filmStorage.findById(film.getId()).orElseThrow();
+		read.setName("Changed");
+		read.getMpa().setName("Changed");
+		read.getGenres().iterator().next().setName("Changed");
+		read.getGenres().add(new Genre(2L, "Драма"));
+		film.getMpa().setName("Changed");
+
+		Film stored = filmStorage.findByIds(List.of(film.getId())).get(0);
+		assertThat(stored.getName()).isEqualTo("Film");
+		assertThat(stored.getMpa().getName()).isEqualTo("G");
+		assertThat(stored.getGenres()).singleElement().extracting(Genre::getName).isEqualTo("Комедия");
+		assertThat(stored).isNotSameAs(read);
+		assertThat(stored.getMpa()).isNotSameAs(read.getMpa());
+	}
+
+	private static Film film() {
+		return new Film(0, "Film", "Description", LocalDate.of(2000, 1, 1), 100, new Mpa(1, null, null), null);
+	}
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReferenceDataCacheTests {
+
+	private final List<Genre> genres = new ArrayList<>(List.of(new Genre(1L, "Комедия"), new Genre(2L, "Драма")));
+	private final GenreStorage genreStorage = mock(GenreStorage.class);
+	private final MpaStorage mpaStorage = mock(MpaStorage.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+	@BeforeEach
+	void setUp() {
+		when(genreStorage.findAll()).thenAnswer(invocation -> List.copyOf(genres));
+		when(mpaStorage.findAll()).thenReturn(List.of(new Mpa(1, "G", "Без ограничений")));
+	}
+
+	@Test
+	public void testSnapshotIsNotSharedWithCallers() {
+		ReferenceDataCache cache = cache(Duration.ofSeconds(5));
+
+		cache.findGenre(1L).orElseThrow().setName("Изменено");
+		cache.findAllMpas().iterator().next().setName("Изменено");
+		genres.get(1).setName("Изменено");
+		Film film = new Film(0, "Film", "Description", LocalDate.of(2000, 1, 1), 100,
+				new Mpa(1, null, null), Set.of(new Genre(2L, null)));
+		cache.resolveMpaAndGenres(film);
+		film.getMpa().setDescription("Изменено");
+		film.getGenres().iterator().next().setName("Изменено");
+
+		assertThat(cache.findGenre(1L)).get().extracting(Genre::getName).isEqualTo("Комедия");
+		assertThat(cache.findAllGenres()).extracting(Genre::getName).containsExactly("Комедия", "Драма");
+		assertThat(cache.findMpa(1L)).get().extracting(Mpa::getName, Mpa::getDescription)
+				.containsExactly("G", "Без ограничений");
+	}
+
+	@Test
+	public void testUnknownIdRefreshesAtMostOncePerInterval() {
+		ReferenceDataCache cache = cache(Duration.ofSeconds(5));
+		genres.add(new Genre(3L, "Мультфильм"));
+
+		// Снимок загружен только что: неизвестный id не перечитывает справочники.
+		for (int i = 0; i < 10; i++) {
+			assertThat(cache.findGenre(3L)).isEmpty();
+			assertThat(cache.findMpa(9L)).isEmpty();
+		}
+		verify(genreStorage, times(1)).findAll();
+		verify(eventPublisher, times(0)).publishEvent(any(Object.class));
+	}
+
+	@Test
+	public void testUnknownIdRefreshesAfterInterval() throws InterruptedException {
+		ReferenceDataCache cache = cache(Duration.ofMillis(100));
+		genres.add(new Genre(3L, "Мультфильм"));
+		Thread.sleep(150);
+
+		assertThat(cache.findGenre(3L)).get().extracting(Genre::getName).isEqualTo("Мультфильм");
+		assertThat(cache.findGenre(3L)).isPresent();
+		verify(genreStorage, times(2)).findAll();
+		verify(eventPublisher).publishEvent(any(ReferenceDataCache.RefreshedEvent.class));
+	}
+
+	private ReferenceDataCache cache(Duration minRefreshInterval) {
+		ReferenceDataCache cache = new ReferenceDataCache(genreStorage, mpaStorage, eventPublisher, new DataVersions(),
+				minRefreshInterval);
+		cache.refresh();
+		return cache;
+	}
+}
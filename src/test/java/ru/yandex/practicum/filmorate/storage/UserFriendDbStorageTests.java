@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.storage.mapper.UserMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Тестовая транзакция выключена: одновременные вставки идут из разных потоков и соединений.
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserFriendDbStorage.class, UserMapper.class})
+class UserFriendDbStorageTests {
+
+	@Autowired
+	private UserFriendDbStorage userFriendStorage;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("DELETE FROM user_friends");
+		jdbcTemplate.update("DELETE FROM film_likes");
+		jdbcTemplate.update("DELETE FROM users");
+		for (int id = 1; id <= 2; id++) {
+			jdbcTemplate.update("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, 'User', '2000-01-01')",
+					id, "user" + id + "@example.com", "user" + id);
+		}
+	}
+
+	@Test
+	public void testAddFriendReportsWhetherFriendshipWasAdded() {
+		assertThat(userFriendStorage.addFriend(1, 2)).isTrue();
+		assertThat(userFriendStorage.addFriend(1, 2)).isFalse();
+		assertThat(userFriendStorage.addFriend(2, 1)).isTrue();
+	}
+
+	@Test
+	public void testConcurrentDuplicateFriendshipIsAddedOnce() throws Exception {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 20; round++) {
+				jdbcTemplate.update("DELETE FROM user_friends");
+				CountDownLatch ready = new CountDownLatch(1);
+				List<Future<Boolean>> results = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					results.add(executor.submit(() -> {
+						ready.await();
+						return userFriendStorage.addFriend(1, 2);
+					}));
+				}
+				ready.countDown();
+				int added = 0;
+				for (Future<Boolean> result : results) {
+					added += result.get() ? 1 : 0;
+				}
+				assertThat(added).isEqualTo(1);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_friends", Integer.class)).isEqualTo(1);
+	}
+}
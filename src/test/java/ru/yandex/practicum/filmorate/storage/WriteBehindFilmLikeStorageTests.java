@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Хранилище создаётся вручную: сброс по таймеру отключён, буфер пишется в базу только явным flush().
+// Тестовая транзакция выключена, потому что сброс идёт в собственных транзакциях.
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@TestPropertySource(locations = "classpath:application-test.properties")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FilmLikeDbStorage.class, DataVersions.class})
+class WriteBehindFilmLikeStorageTests {
+
+	@Autowired
+	private FilmLikeDbStorage delegate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private DataVersions dataVersions;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@TempDir
+	private Path journalDir;
+
+	private final List<WriteBehindFilmLikeStorage> started = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("DELETE FROM film_likes");
+		jdbcTemplate.update("DELETE FROM films");
+		jdbcTemplate.update("DELETE FROM users");
+		for (int id = 1; id <= 2; id++) {
+			jdbcTemplate.update("INSERT INTO users (id, email, login, name, birthday) VALUES (?, ?, ?, 'User', '2000-01-01')",
+					id, "user" + id + "@example.com", "user" + id);
+			jdbcTemplate.update("INSERT INTO films (id, name, description, release_date, duration, mpa_rating_id) " +
+					"VALUES (?, 'Film', 'Description', '2000-01-01', 100, 1)", id);
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		for (WriteBehindFilmLikeStorage storage : started) {
+			storage.stop();
+		}
+	}
+
+	@Test
+	public void testJournalReplayAfterCrash() throws IOException {
+		WriteBehindFilmLikeStorage crashed = start(100);
+		crashed.addLike(1, 1);
+		crashed.addLike(2, 1);
+		crashed.removeLike(2, 1);
+		crashed.addLike(2, 2);
+		assertThat(delegate.likeExists(1, 1)).isFalse();
+
+		// Процесс упал посреди записи строки: недописанная строка при повторе пропускается.
+		try (Stream<Path> segments = Files.list(journalDir)) {
+			Path segment = segments.max(Path::compareTo).orElseThrow();
+			Files.writeString(segment, "A 1", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		}
+
+		start(100);
+
+		assertThat(delegate.likeExists(1, 1)).isTrue();
+		assertThat(delegate.likeExists(2, 1)).isFalse();
+		assertThat(delegate.likeExists(2, 2)).isTrue();
+		assertThat(delegate.getLikeCountsByFilm()).containsEntry(1L, 1L).containsEntry(2L, 1L);
+	}
+
+	@Test
+	public void testLikeAndUnlikeCancelOutBeforeFlush() {
+		WriteBehindFilmLikeStorage storage = start(100);
+		delegate.addLike(2, 2);
+
+		assertThat(storage.addLike(1, 1)).isTrue();
+		assertThat(storage.addLike(1, 1)).isFalse();
+		assertThat(storage.removeLike(1, 1)).isTrue();
+		assertThat(storage.removeLike(1, 1)).isFalse();
+		assertThat(storage.addLike(2, 2)).isFalse();
+		assertThat(storage.removeLike(2, 2)).isTrue();
+		assertThat(storage.addLike(2, 2)).isTrue();
+		assertThat(storage.likeExists(1, 1)).isFalse();
+		assertThat(storage.likeExists(2, 2)).isTrue();
+
+		long likesVersion = dataVersions.getLikes();
+		storage.flush();
+
+		assertThat(dataVersions.getLikes()).isEqualTo(likesVersion);
+		assertThat(delegate.likeExists(1, 1)).isFalse();
+		assertThat(delegate.getLikeCountsByFilm()).containsEntry(1L, 0L).containsEntry(2L, 1L);
+	}
+
+	@Test
+	public void testFullQueueRejectsWithRetryAfter() {
+		WriteBehindFilmLikeStorage storage = start(2);
+		storage.addLike(1, 1);
+		storage.addLike(1, 2);
+
+		assertThatThrownBy(() -> storage.addLike(2, 1))
+				.isInstanceOf(ServiceUnavailableException.class)
+				.hasFieldOrPropertyWithValue("retryAfterSeconds", 1L);
+
+		// Отмена операции из буфера место не занимает.
+		storage.removeLike(1, 2);
+		storage.addLike(2, 1);
+		storage.flush();
+		assertThat(delegate.getLikeCountsByFilm()).containsEntry(1L, 1L).containsEntry(2L, 1L);
+	}
+
+	@Test
+	public void testFailedImportChunkKeepsPendingLikes() {
+		WriteBehindFilmLikeStorage storage = start(100);
+		storage.addLike(1, 1);
+		storage.removeLike(1, 1);
+		storage.addLike(2, 1);
+
+		// Лайк несуществующего пользователя нарушает внешний ключ, и транзакция пачки откатывается.
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+				storage.addLikes(List.of(new FilmLike(1, 2), new FilmLike(1, 999)))))
+				.isInstanceOf(DataIntegrityViolationException.class);
+
+		assertThat(delegate.likeExists(2, 1)).isTrue();
+		assertThat(delegate.likeExists(1, 2)).isFalse();
+		assertThat(delegate.getLikeCountsByFilm()).containsEntry(1L, 0L).containsEntry(2L, 1L);
+		try (Stream<Path> segments = Files.list(journalDir)) {
+			assertThat(segments.mapToLong(this::size).sum()).isZero();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		assertThat(storage.addLike(2, 1)).isFalse();
+	}
+
+	@Test
+	public void testConcurrentDuplicateLikeChangesStateOnce() throws Exception {
+		WriteBehindFilmLikeStorage storage = start(100);
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 20; round++) {
+				CountDownLatch ready = new CountDownLatch(1);
+				boolean liked = round % 2 == 0;
+				List<Future<Boolean>> results = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					results.add(executor.submit(() -> {
+						ready.await();
+						return liked ? storage.addLike(1, 1) : storage.removeLike(1, 1);
+					}));
+				}
+				ready.countDown();
+				int changed = 0;
+				for (Future<Boolean> result : results) {
+					changed += result.get() ? 1 : 0;
+				}
+				assertThat(changed).isEqualTo(1);
+				if (round % 5 == 0) {
+					storage.flush();
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+		storage.flush();
+		assertThat(delegate.likeExists(1, 1)).isFalse();
+		assertThat(delegate.getLikeCountsByFilm()).containsEntry(1L, 0L);
+	}
+
+	private long size(Path segment) {
+		try {
+			return Files.size(segment);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private WriteBehindFilmLikeStorage start(int capacity) {
+		WriteBehindFilmLikeStorage storage = new WriteBehindFilmLikeStorage(delegate, transactionManager, dataVersions,
+				journalDir, 1000, capacity, Duration.ofHours(1), Duration.ofMillis(10));
+		storage.start();
+		started.add(storage);
+		return storage;
+	}
+}